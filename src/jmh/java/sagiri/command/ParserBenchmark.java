@@ -0,0 +1,51 @@
+package sagiri.command;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import sagiri.exception.SagiriException;
+
+/**
+ * Parsing one line of input, for every command type and an unknown command.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+    @Param({
+        "list",
+        "mark 12",
+        "unmark 12",
+        "delete 12",
+        "todo read book",
+        "event team meeting /from 25-12-24 /to 26-12-24",
+        "deadline submit report /by 31-12-24",
+        "check 25-12-24",
+        "find book",
+        "bye",
+        "dance",
+    })
+    public String input;
+
+    @Benchmark
+    public Object parse() {
+        try {
+            return Parser.parse(input);
+        } catch (SagiriException e) {
+            return e;
+        }
+    }
+}
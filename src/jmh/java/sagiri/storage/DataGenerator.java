@@ -0,0 +1,106 @@
+package sagiri.storage;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import sagiri.exception.SagiriException;
+import sagiri.task.Task;
+import sagiri.task.TaskType;
+
+/**
+ * Writes synthetic data files for benchmarks. The same count and seed always
+ * give the same file, so results can be reproduced on another machine.
+ *
+ * Half of the tasks are todos and a quarter each are deadlines and events,
+ * with names of two to five words and dates spread over 2024 to 2026.
+ * About a third are marked as done.
+ */
+public class DataGenerator {
+    private static final String[] WORDS = {
+        "read", "book", "buy", "milk", "submit", "report", "team", "meeting", "call", "mum", "review",
+        "pull", "request", "project", "deadline", "lunch", "with", "friends", "gym", "session", "pay",
+        "bills", "plan", "trip", "write", "essay", "fix", "bug", "clean", "room", "water", "plants",
+    };
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+    private static final int DAYS = 3 * 365;
+
+    /**
+     * Generates a data file.
+     *
+     * @param file the file to write, in the text format unless it ends in .bin
+     * @param count number of tasks
+     * @param seed random seed
+     */
+    public static void generate(Path file, int count, long seed) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        if (BinaryStorage.isBinaryFile(file)) {
+            Path text = dir.resolve(file.getFileName() + ".txt");
+            generate(text, count, seed);
+            try {
+                BinaryStorage.convertToBinary(text, file);
+            } catch (SagiriException e) {
+                throw new IOException(e.getMessage());
+            } finally {
+                Files.delete(text);
+            }
+            return;
+        }
+
+        Random random = new Random(seed);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < count; i++) {
+                writer.write(Storage.formatTask(randomTask(random), random.nextInt(3) == 0));
+                writer.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Creates one random task.
+     */
+    public static Task randomTask(Random random) {
+        StringBuilder name = new StringBuilder();
+        int words = 2 + random.nextInt(4);
+        for (int w = 0; w < words; w++) {
+            if (w > 0) {
+                name.append(' ');
+            }
+            name.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        name.append(' ').append(random.nextInt(1000));
+
+        int kind = random.nextInt(4);
+        if (kind < 2) {
+            return Task.of(name.toString(), TaskType.TODO, null, null);
+        }
+        LocalDateTime start = randomDay(random);
+        if (kind == 2) {
+            return Task.of(name.toString(), TaskType.DEADLINE, null, start);
+        }
+        return Task.of(name.toString(), TaskType.EVENT, start, start.plusDays(random.nextInt(4)));
+    }
+
+    private static LocalDateTime randomDay(Random random) {
+        return FIRST_DAY.plusDays(random.nextInt(DAYS)).atStartOfDay();
+    }
+
+    /**
+     * Usage: DataGenerator COUNT FILE [SEED]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: DataGenerator <count> <file> [seed]");
+            return;
+        }
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        generate(Paths.get(args[1]), Integer.parseInt(args[0]), seed);
+    }
+}
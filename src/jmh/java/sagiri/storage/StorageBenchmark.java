@@ -0,0 +1,94 @@
+package sagiri.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import sagiri.exception.SagiriException;
+import sagiri.task.Task;
+import sagiri.task.TaskList;
+
+/**
+ * Loading and saving whole data files, in both formats.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StorageBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int tasks;
+
+    @Param({"text", "binary"})
+    public String format;
+
+    private Path dir;
+    private Path dataFile;
+    private Path saveFile;
+    private List<Task> snapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SagiriException {
+        dir = Files.createTempDirectory("sagiri-bench");
+        String name = format.equals("binary") ? "Sagiri.bin" : "Sagiri.dat";
+        dataFile = dir.resolve(name);
+        saveFile = dir.resolve("saved-" + name);
+        DataGenerator.generate(dataFile, tasks, 42);
+
+        TaskList taskList = new TaskList();
+        Storage.loadTasks(taskList, dataFile);
+        snapshot = taskList.snapshot();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(dataFile);
+        Files.deleteIfExists(saveFile);
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public TaskList loadTasks() throws SagiriException {
+        TaskList taskList = new TaskList();
+        Storage.loadTasks(taskList, dataFile);
+        return taskList;
+    }
+
+    @Benchmark
+    public TaskList loadTasksParallel() throws SagiriException {
+        TaskList taskList = new TaskList();
+        if (format.equals("binary")) {
+            Storage.loadTasks(taskList, dataFile);
+        } else {
+            ParallelLoader.loadTasks(taskList, dataFile);
+        }
+        return taskList;
+    }
+
+    /**
+     * What a journal compaction writes, minus the fixed ./data path.
+     */
+    @Benchmark
+    public Path saveTasks() throws IOException {
+        Storage.writeSnapshot(snapshot, saveFile);
+        return saveFile;
+    }
+}
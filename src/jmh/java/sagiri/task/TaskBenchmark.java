@@ -0,0 +1,57 @@
+package sagiri.task;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rendering a task, both from scratch and from the cached string.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskBenchmark {
+    @Param({"todo", "deadline", "event"})
+    public String type;
+
+    private Task task;
+
+    @Setup
+    public void setUp() {
+        switch (type) {
+        case "deadline":
+            task = new Task("submit project report", "31-12-24");
+            break;
+        case "event":
+            task = new Task("team offsite meeting", "25-12-24", "27-12-24");
+            break;
+        default:
+            task = new Task("read the whole book");
+            break;
+        }
+    }
+
+    @Benchmark
+    public String toStringUncached() {
+        // A fresh copy has no cached rendering
+        return task.withDone(false).toString();
+    }
+
+    @Benchmark
+    public String toStringCached() {
+        return task.toString();
+    }
+}
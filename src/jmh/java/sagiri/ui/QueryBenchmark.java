@@ -0,0 +1,72 @@
+package sagiri.ui;
+
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import sagiri.exception.SagiriException;
+import sagiri.storage.DataGenerator;
+import sagiri.task.TaskList;
+
+/**
+ * The find and check commands end to end: the index lookup in TaskList plus
+ * rendering the matches through Ui, with output discarded.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class QueryBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int tasks;
+
+    @Param({"book", "submit report", "xyz"})
+    public String keyword;
+
+    private TaskList taskList;
+    private LocalDateTime date;
+
+    @Setup
+    public void setUp() throws SagiriException {
+        taskList = new TaskList();
+        Random random = new Random(42);
+        for (int i = 0; i < tasks; i++) {
+            taskList.addTask(DataGenerator.randomTask(random));
+        }
+        date = TaskList.parseDate("25-12-24");
+        Ui.setOutput(Writer.nullWriter());
+        // Build the name index outside the measurement
+        taskList.findTasksContaining(keyword);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Ui.setOutput(null);
+    }
+
+    @Benchmark
+    public void find() {
+        Ui.printFoundTasks(taskList.getTasks(), taskList.findTasksContaining(keyword), keyword);
+    }
+
+    @Benchmark
+    public void check() {
+        Ui.printCheckedTasks(taskList.getTasks(), taskList.findTasksOn(date), date);
+    }
+}
@@ -1,57 +1,193 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
 import java.util.Scanner;
 
 import sagiri.command.Parser;
 import sagiri.exception.SagiriException;
+import sagiri.stats.CommandEvent;
+import sagiri.stats.CommandStats;
+import sagiri.stats.CommandStats.Phase;
+import sagiri.storage.Archive;
+import sagiri.storage.Journal;
 import sagiri.storage.Storage;
+import sagiri.task.ArrayTaskStore;
+import sagiri.task.Change;
+import sagiri.task.ColumnarTaskStore;
 import sagiri.task.Task;
 import sagiri.task.TaskList;
 import sagiri.ui.Ui;
 
 public class Sagiri {
+    // Set -Dsagiri.conflicts.warn=false to add events without checking for overlaps
+    private static final boolean WARN_CONFLICTS = !"false".equals(System.getProperty("sagiri.conflicts.warn"));
 
     /**
-     * Processes a user command and performs the appropriate action.
+     * Parses a line of input, timing it as the parse phase of the command.
      */
-    private static void processCommand(TaskList taskList, Parser.ParsedCommand command) throws SagiriException {
-        switch (command.type) {
+    static Parser.ParsedCommand parse(String input) throws SagiriException {
+        long start = CommandStats.start();
+        Parser.ParsedCommand command = Parser.parse(input);
+        CommandStats.lap(command.type, Phase.PARSE, start);
+        return command;
+    }
+
+    /**
+     * Processes a user command and performs the appropriate action, emitting
+     * a CommandEvent for Flight Recorder.
+     * Not thread-safe; SagiriServer serialises changes with its own lock.
+     */
+    static void processCommand(TaskList taskList, Journal journal, Parser.ParsedCommand command)
+            throws SagiriException {
+        CommandEvent event = new CommandEvent();
+        event.begin();
+        boolean isFailed = true;
+        try {
+            runCommand(taskList, journal, command);
+            isFailed = false;
+        } finally {
+            if (event.shouldCommit()) {
+                event.type = command.type.name().toLowerCase();
+                event.taskCount = taskList.size();
+                event.isFailed = isFailed;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Performs a command, timing its execute, render and persist phases in
+     * CommandStats.
+     */
+    private static void runCommand(TaskList taskList, Journal journal, Parser.ParsedCommand command)
+            throws SagiriException {
+        Parser.CommandType type = command.type;
+        long time = CommandStats.start();
+        int index = command.taskId == Task.NO_ID ? command.taskIndex : positionOf(taskList, command.taskId);
+        switch (type) {
         case LIST:
-            Ui.printTasks(taskList.getTasks());
+            if (command.pageSize == 0) {
+                Ui.printTasks(taskList.getTasks(), command.showIds);
+            } else {
+                Ui.printPage(taskList.getTasks(), command.taskIndex, command.pageSize, command.showIds);
+            }
+            CommandStats.lap(type, Phase.RENDER, time);
             break;
         case MARK:
-            taskList.markTaskDone(command.taskIndex);
-            Ui.printMarkedDone(taskList.getTasks().get(command.taskIndex));
-            Storage.saveTasks(taskList);
+            if (command.isBulk()) {
+                runBulkCommand(taskList, journal, command);
+                break;
+            }
+            taskList.markTaskDone(index);
+            time = CommandStats.lap(type, Phase.EXECUTE, time);
+            Ui.printMarkedDone(taskList.getTasks().get(index));
+            time = CommandStats.lap(type, Phase.RENDER, time);
+            journal.logMark(index);
+            CommandStats.lap(type, Phase.PERSIST, time);
             break;
         case UNMARK:
-            taskList.markTaskNotDone(command.taskIndex);
-            Ui.printMarkedNotDone(taskList.getTasks().get(command.taskIndex));
-            Storage.saveTasks(taskList);
+            if (command.isBulk()) {
+                runBulkCommand(taskList, journal, command);
+                break;
+            }
+            taskList.markTaskNotDone(index);
+            time = CommandStats.lap(type, Phase.EXECUTE, time);
+            Ui.printMarkedNotDone(taskList.getTasks().get(index));
+            time = CommandStats.lap(type, Phase.RENDER, time);
+            journal.logUnmark(index);
+            CommandStats.lap(type, Phase.PERSIST, time);
             break;
         case DELETE:
-            Task removed = taskList.deleteTask(command.taskIndex);
+            if (command.isBulk()) {
+                runBulkCommand(taskList, journal, command);
+                break;
+            }
+            Task removed = taskList.deleteTask(index);
+            time = CommandStats.lap(type, Phase.EXECUTE, time);
             Ui.printDeleted(removed);
-            Storage.saveTasks(taskList);
+            time = CommandStats.lap(type, Phase.RENDER, time);
+            journal.logDelete(index);
+            CommandStats.lap(type, Phase.PERSIST, time);
             break;
         case TODO:
-            Task addedTodo = taskList.addTodo(command.data);
-            Ui.printAdded(addedTodo, taskList.size());
-            Storage.saveTasks(taskList);
-            break;
         case EVENT:
-            Task addedEvent = taskList.addEvent(command.data);
-            Ui.printAdded(addedEvent, taskList.size());
-            Storage.saveTasks(taskList);
-            break;
         case DEADLINE:
-            Task addedDeadline = taskList.addDeadline(command.data);
-            Ui.printAdded(addedDeadline, taskList.size());
-            Storage.saveTasks(taskList);
+            Task added = type == Parser.CommandType.TODO ? taskList.addTodo(command.data)
+                    : type == Parser.CommandType.EVENT ? taskList.addEvent(command.data)
+                    : taskList.addDeadline(command.data);
+            int[] overlaps = type == Parser.CommandType.EVENT && WARN_CONFLICTS
+                    ? taskList.findOverlappingEvents(added) : new int[0];
+            time = CommandStats.lap(type, Phase.EXECUTE, time);
+            Ui.printAdded(added, taskList.size(), taskList.getTasks(), overlaps);
+            time = CommandStats.lap(type, Phase.RENDER, time);
+            journal.logAdd(added);
+            CommandStats.lap(type, Phase.PERSIST, time);
             break;
         case CHECK:
-            Ui.printCheckedTasks(taskList.getTasks(), command.data, TaskList.parseDate(command.data));
+            LocalDateTime date = TaskList.parseDate(command.data);
+            if (command.endDate == null) {
+                int[] onDate = taskList.findTasksOn(date);
+                time = CommandStats.lap(type, Phase.EXECUTE, time);
+                Ui.printCheckedTasks(taskList.getTasks(), onDate, date);
+            } else {
+                LocalDateTime endDate = TaskList.parseDate(command.endDate);
+                int[] between = taskList.findTasksBetween(date, endDate);
+                time = CommandStats.lap(type, Phase.EXECUTE, time);
+                Ui.printTasksBetween(taskList.getTasks(), between, date, endDate);
+            }
+            CommandStats.lap(type, Phase.RENDER, time);
+            break;
+        case AGENDA:
+            LocalDateTime today = LocalDate.now().atStartOfDay();
+            LocalDateTime lastDay = today.plusDays(command.days - 1);
+            int[] agenda = taskList.findTasksBetween(today, lastDay);
+            time = CommandStats.lap(type, Phase.EXECUTE, time);
+            Ui.printTasksBetween(taskList.getTasks(), agenda, today, lastDay);
+            CommandStats.lap(type, Phase.RENDER, time);
+            break;
+        case CONFLICTS:
+            List<int[]> conflicts = taskList.findConflicts();
+            time = CommandStats.lap(type, Phase.EXECUTE, time);
+            Ui.printConflicts(taskList.getTasks(), conflicts);
+            CommandStats.lap(type, Phase.RENDER, time);
             break;
         case FIND:
-            Ui.printFoundTasks(taskList.getTasks(), command.data);
+            int[] found = taskList.findTasksContaining(command.data);
+            time = CommandStats.lap(type, Phase.EXECUTE, time);
+            Ui.printFoundTasks(taskList.getTasks(), found, command.data);
+            CommandStats.lap(type, Phase.RENDER, time);
+            break;
+        case ARCHIVE:
+            runArchive(taskList, journal, command);
+            break;
+        case ARCHIVE_FIND:
+            // Matches are printed as the archive is read, so this is all one phase
+            int[] matches = new int[1];
+            Ui.printArchiveMatchesStart(command.data);
+            Archive.find(Archive.ARCHIVE_FILE, command.data, task -> Ui.printArchiveMatch(++matches[0], task));
+            Ui.printArchiveMatchesEnd(matches[0], command.data);
+            CommandStats.lap(type, Phase.RENDER, time);
+            break;
+        case UNDO:
+        case REDO:
+            Change change = type == Parser.CommandType.UNDO ? taskList.undo() : taskList.redo();
+            time = CommandStats.lap(type, Phase.EXECUTE, time);
+            Ui.printUndone(change, type == Parser.CommandType.UNDO, taskList.size());
+            time = CommandStats.lap(type, Phase.RENDER, time);
+            if (change != null) {
+                journal.logChange(change);
+            }
+            CommandStats.lap(type, Phase.PERSIST, time);
+            break;
+        case STATS:
+            Ui.printStats(CommandStats.summary());
             break;
         case BYE:
             // Handled in main
@@ -59,33 +195,243 @@ public class Sagiri {
         }
     }
 
-    public static void main(String[] args) {
-        Scanner scanner = new Scanner(System.in);
-        TaskList taskList = new TaskList();
+    /**
+     * Finds the current position of the task a command refers to by ID.
+     */
+    private static int positionOf(TaskList taskList, long id) throws SagiriException {
+        int position = taskList.positionOf(id);
+        if (position < 0) {
+            throw new SagiriException("Can't find #" + id);
+        }
+        return position;
+    }
 
-        try {
-            Storage.loadTasks(taskList);
-        } catch (SagiriException e) {
-            Ui.printLoadingError(e.getMessage());
+    /**
+     * Performs a mark, unmark or delete command on a range or filter of tasks
+     * as one change to the task list and one journal record.
+     */
+    private static void runBulkCommand(TaskList taskList, Journal journal, Parser.ParsedCommand command)
+            throws SagiriException {
+        Parser.CommandType type = command.type;
+        long time = CommandStats.start();
+        BitSet positions = command.filter != null ? taskList.select(command.filter)
+                : taskList.select(command.taskIndex, command.taskEndIndex);
+        int count = positions.cardinality();
+        if (type == Parser.CommandType.DELETE) {
+            taskList.deleteTasks(positions);
+        } else {
+            taskList.markTasks(positions, type == Parser.CommandType.MARK);
+        }
+        time = CommandStats.lap(type, Phase.EXECUTE, time);
+        if (type == Parser.CommandType.DELETE) {
+            Ui.printDeletedMany(count, taskList.size());
+        } else {
+            Ui.printMarkedMany(count, type == Parser.CommandType.MARK);
         }
+        time = CommandStats.lap(type, Phase.RENDER, time);
+        if (count > 0) {
+            if (type == Parser.CommandType.DELETE) {
+                journal.logDelete(positions);
+            } else if (type == Parser.CommandType.MARK) {
+                journal.logMark(positions);
+            } else {
+                journal.logUnmark(positions);
+            }
+        }
+        CommandStats.lap(type, Phase.PERSIST, time);
+    }
+
+    /**
+     * Moves done tasks that have been over for the given number of days, and
+     * all done todos, to the archive. The tasks reach the archive file before
+     * they are deleted, and a compaction is started so the data file drops
+     * them straight away. Archiving cannot be undone, as undo would leave
+     * copies of the tasks in the archive, so the undo history is cleared.
+     */
+    private static void runArchive(TaskList taskList, Journal journal, Parser.ParsedCommand command)
+            throws SagiriException {
+        Parser.CommandType type = command.type;
+        long time = CommandStats.start();
+        BitSet positions = taskList.selectDoneBefore(LocalDate.now().minusDays(command.days).atStartOfDay());
+        List<Task> tasks = taskList.getTasks();
+        List<Task> archived = new ArrayList<>(positions.cardinality());
+        for (int i = positions.nextSetBit(0); i >= 0; i = positions.nextSetBit(i + 1)) {
+            archived.add(tasks.get(i));
+        }
+        Archive.append(archived, Archive.ARCHIVE_FILE);
+        taskList.deleteTasks(positions);
+        if (!archived.isEmpty()) {
+            taskList.clearUndoHistory();
+        }
+        time = CommandStats.lap(type, Phase.EXECUTE, time);
+        Ui.printArchived(archived.size(), taskList.size());
+        time = CommandStats.lap(type, Phase.RENDER, time);
+        if (!archived.isEmpty()) {
+            journal.logDelete(positions);
+            journal.checkpoint();
+        }
+        CommandStats.lap(type, Phase.PERSIST, time);
+    }
+
+    /**
+     * Runs commands typed at the console until "bye".
+     */
+    private static void runInteractive(TaskList taskList, Journal journal) {
+        Scanner scanner = new Scanner(System.in);
         Ui.printGreeting();
 
         String input = scanner.nextLine();
 
         while (!input.equals("bye")) {
             try {
-                Parser.ParsedCommand command = Parser.parse(input);
+                Parser.ParsedCommand command = parse(input);
                 if (command.type == Parser.CommandType.BYE) {
                     break;
                 }
-                processCommand(taskList, command);
+                processCommand(taskList, journal, command);
             } catch (SagiriException e) {
                 Ui.printError(e.getMessage());
             }
             input = scanner.nextLine();
         }
 
+        journal.close();
+        CommandStats.dumpIfRequested();
         Ui.printBye();
         scanner.close();
     }
+
+    /**
+     * Runs a script of commands back to back until "bye" or the end of input.
+     * Journal records and output are only flushed every commitEvery commands
+     * (or once at the end if commitEvery is 0), and a throughput summary is
+     * printed at the end. Only commits that had records to flush are counted.
+     */
+    static void runBatch(TaskList taskList, Journal journal, BufferedReader reader, int commitEvery)
+            throws IOException {
+        journal.setAutoFlush(false);
+        Ui.setAutoFlush(false);
+        Ui.printGreeting();
+
+        long start = System.nanoTime();
+        int commands = 0;
+        int failed = 0;
+        int commits = 0;
+        String input;
+        while ((input = reader.readLine()) != null && !input.equals("bye")) {
+            commands++;
+            try {
+                Parser.ParsedCommand command = parse(input);
+                if (command.type == Parser.CommandType.BYE) {
+                    break;
+                }
+                processCommand(taskList, journal, command);
+            } catch (SagiriException e) {
+                failed++;
+                Ui.printError(e.getMessage());
+            }
+            if (commitEvery > 0 && commands % commitEvery == 0) {
+                if (journal.commit()) {
+                    commits++;
+                }
+                Ui.flush();
+            }
+        }
+
+        if (journal.commit()) {
+            commits++;
+        }
+        journal.close();
+        CommandStats.dumpIfRequested();
+        Ui.printBye();
+        Ui.printBatchSummary(commands, failed, commits, System.nanoTime() - start);
+        Ui.setAutoFlush(true);
+    }
+
+    /**
+     * Starts Sagiri.
+     * Usage: Sagiri [--script FILE | --batch | --serve PORT] [--commit-every N]
+     * --script runs the commands in FILE, --batch runs commands piped on
+     * standard input, --serve shares the task list with clients connecting
+     * to PORT on localhost, and --commit-every sets after how many commands
+     * a batch commits; by default it commits once, at the end.
+     */
+    public static void main(String[] args) {
+        String script = null;
+        boolean isBatch = false;
+        int port = -1;
+        int commitEvery = 0;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                case "--script":
+                    script = args[++i];
+                    isBatch = true;
+                    break;
+                case "--batch":
+                    isBatch = true;
+                    break;
+                case "--serve":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                case "--commit-every":
+                    commitEvery = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException(args[i]);
+                }
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            System.out.println("Usage: Sagiri [--script FILE | --batch | --serve PORT] [--commit-every N]");
+            return;
+        }
+
+        // By default tasks are kept in immutable versions that can be read without locking;
+        // -Dsagiri.store=columnar keeps them in primitive columns to save memory on large lists, and
+        // -Dsagiri.store=array in a plain array, whose snapshots are copies taken under a lock
+        String store = System.getProperty("sagiri.store", "");
+        TaskList taskList = store.equals("columnar") ? new TaskList(new ColumnarTaskStore())
+                : store.equals("array") ? new TaskList(new ArrayTaskStore())
+                : new TaskList();
+
+        try {
+            Storage.loadTasks(taskList);
+        } catch (SagiriException e) {
+            Ui.printLoadingError(e.getMessage());
+        }
+
+        // Only changes made from here on can be undone; -Dsagiri.undo.budget sets
+        // how many bytes of them to keep
+        taskList.enableUndo(Long.getLong("sagiri.undo.budget", TaskList.DEFAULT_UNDO_BUDGET_BYTES));
+
+        Journal journal;
+        try {
+            journal = Journal.open(taskList);
+        } catch (SagiriException e) {
+            Ui.printError(e.getMessage());
+            return;
+        }
+
+        if (port >= 0) {
+            try {
+                new SagiriServer(taskList, journal).serve(port);
+            } catch (IOException e) {
+                Ui.printError("Error running server: " + e.getMessage());
+            }
+            return;
+        }
+        if (!isBatch) {
+            runInteractive(taskList, journal);
+            return;
+        }
+        try (BufferedReader reader = script != null
+                ? Files.newBufferedReader(Paths.get(script))
+                : new BufferedReader(new InputStreamReader(System.in))) {
+            runBatch(taskList, journal, reader, commitEvery);
+        } catch (IOException e) {
+            journal.close();
+            Ui.setAutoFlush(true);
+            Ui.printError("Error reading commands: " + e.getMessage());
+        }
+    }
 }
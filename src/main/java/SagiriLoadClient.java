@@ -0,0 +1,119 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Load generator for SagiriServer. Opens a number of concurrent sessions and
+ * has each send a mix of reads (find, check) and writes (todo, deadline,
+ * mark) as fast as replies come back, then prints the throughput and reply
+ * latency percentiles.
+ *
+ * Usage: SagiriLoadClient PORT [CLIENTS] [COMMANDS_PER_CLIENT] [READ_PERCENT]
+ */
+public class SagiriLoadClient {
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 1) {
+            System.out.println("Usage: SagiriLoadClient PORT [CLIENTS] [COMMANDS_PER_CLIENT] [READ_PERCENT]");
+            return;
+        }
+        int port = Integer.parseInt(args[0]);
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int commands = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int readPercent = args.length > 3 ? Integer.parseInt(args[3]) : 80;
+
+        long[][] latencies = new long[clients][];
+        Thread[] threads = new Thread[clients];
+        long start = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            threads[c] = new Thread(() -> latencies[client] = runClient(port, client, commands, readPercent));
+            threads[c].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        if (all.length == 0) {
+            System.out.println("No replies received.");
+            return;
+        }
+        System.out.println(all.length + " commands from " + clients + " clients in " + elapsed / 1_000_000
+                + " ms (" + all.length * 1_000_000_000L / elapsed + " commands/s)");
+        System.out.println("Reply latency: p50 " + micros(all, 0.50) + " us, p99 " + micros(all, 0.99)
+                + " us, max " + all[all.length - 1] / 1000 + " us");
+    }
+
+    /**
+     * Runs one session and returns the latency of each reply in nanoseconds.
+     */
+    private static long[] runClient(int port, int client, int commands, int readPercent) {
+        Random random = new Random(client);
+        long[] latencies = new long[commands];
+        int done = 0;
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+                BufferedReader in = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+            socket.setTcpNoDelay(true);
+            readReply(in);
+            for (; done < commands; done++) {
+                String command = nextCommand(random, client, done, readPercent);
+                long sent = System.nanoTime();
+                out.write(command);
+                out.write('\n');
+                out.flush();
+                readReply(in);
+                latencies[done] = System.nanoTime() - sent;
+            }
+            out.write("bye\n");
+            out.flush();
+            readReply(in);
+        } catch (IOException e) {
+            System.out.println("Client " + client + " stopped: " + e.getMessage());
+        }
+        return Arrays.copyOf(latencies, done);
+    }
+
+    private static String nextCommand(Random random, int client, int n, int readPercent) {
+        String day = String.format("%02d-12-24", 1 + random.nextInt(28));
+        if (random.nextInt(100) < readPercent) {
+            return random.nextBoolean() ? "find client " + client + " task " + random.nextInt(n + 1)
+                    : "check " + day;
+        }
+        switch (random.nextInt(3)) {
+        case 0:
+            return "todo client " + client + " task " + n;
+        case 1:
+            return "deadline client " + client + " task " + n + " /by " + day;
+        default:
+            return "mark " + (1 + random.nextInt(n + 1));
+        }
+    }
+
+    /**
+     * Reads one reply, which ends with an empty line.
+     */
+    private static void readReply(BufferedReader in) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null && !line.isEmpty()) {
+            // Replies are only timed, not checked
+        }
+        if (line == null) {
+            throw new IOException("connection closed");
+        }
+    }
+
+    private static long micros(long[] sorted, double percentile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(percentile * (sorted.length - 1)))] / 1000;
+    }
+}
@@ -0,0 +1,155 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import sagiri.command.Parser;
+import sagiri.exception.SagiriException;
+import sagiri.stats.CommandStats;
+import sagiri.storage.Journal;
+import sagiri.task.TaskList;
+import sagiri.ui.Ui;
+
+/**
+ * Serves one shared task list to many clients over TCP on localhost.
+ *
+ * Each connection is a session that reads one command per line and runs it
+ * through the same Parser.parse and processCommand path as the console. The
+ * reply to each command is followed by an empty line so that clients know
+ * where it ends. Sessions run on virtual threads when the JVM has them and
+ * on platform threads otherwise.
+ *
+ * The task list and journal are guarded by a read-write lock: list, check and
+ * find take the read lock and run in parallel with each other, while every
+ * other command takes the write lock. With the default VersionedTaskStore,
+ * list renders an immutable snapshot and takes no lock at all.
+ */
+public class SagiriServer {
+    private final TaskList taskList;
+    private final Journal journal;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ExecutorService sessions = newSessionExecutor();
+
+    /**
+     * Constructor for SagiriServer.
+     *
+     * @param taskList the task list shared by all sessions
+     * @param journal the journal changes are recorded in
+     */
+    public SagiriServer(TaskList taskList, Journal journal) {
+        this.taskList = taskList;
+        this.journal = journal;
+    }
+
+    /**
+     * Accepts connections on the given port until the process is stopped.
+     */
+    public void serve(int port) throws IOException {
+        try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            System.out.println("Sagiri is listening on " + server.getLocalSocketAddress());
+            while (true) {
+                Socket socket = server.accept();
+                sessions.execute(() -> runSession(socket));
+            }
+        } finally {
+            sessions.shutdown();
+            journal.close();
+        }
+    }
+
+    private void runSession(Socket socket) {
+        try (socket;
+                BufferedReader in = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                Writer out = new BufferedWriter(
+                        new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            // Replies are small and written in two flushes; don't let Nagle hold back the second
+            socket.setTcpNoDelay(true);
+            Ui.setOutput(out);
+            Ui.setAutoFlush(false);
+            Ui.printGreeting();
+            endReply(out);
+
+            String input;
+            while ((input = in.readLine()) != null && !input.equals("bye")) {
+                runCommand(input);
+                endReply(out);
+            }
+            Ui.printBye();
+            endReply(out);
+        } catch (IOException e) {
+            // The client went away; nothing left to reply to
+        } finally {
+            Ui.setAutoFlush(true);
+            Ui.setOutput(null);
+        }
+    }
+
+    private void runCommand(String input) {
+        try {
+            Parser.ParsedCommand command = Sagiri.parse(input);
+            if (command.type == Parser.CommandType.BYE) {
+                return;
+            }
+            if (command.type == Parser.CommandType.LIST && taskList.hasLockFreeSnapshots()) {
+                long start = CommandStats.start();
+                if (command.pageSize == 0) {
+                    Ui.printTasks(taskList.snapshot(), command.showIds);
+                } else {
+                    Ui.printPage(taskList.snapshot(), command.taskIndex, command.pageSize, command.showIds);
+                }
+                CommandStats.lap(command.type, CommandStats.Phase.RENDER, start);
+                return;
+            }
+            Lock guard = isReadOnly(command.type) ? lock.readLock() : lock.writeLock();
+            guard.lock();
+            try {
+                Sagiri.processCommand(taskList, journal, command);
+            } finally {
+                guard.unlock();
+            }
+        } catch (SagiriException e) {
+            Ui.printError(e.getMessage());
+        }
+    }
+
+    private static void endReply(Writer out) throws IOException {
+        Ui.flush();
+        out.write(System.lineSeparator());
+        out.flush();
+    }
+
+    private static boolean isReadOnly(Parser.CommandType type) {
+        return type == Parser.CommandType.LIST || type == Parser.CommandType.CHECK
+                || type == Parser.CommandType.AGENDA || type == Parser.CommandType.CONFLICTS
+                || type == Parser.CommandType.FIND || type == Parser.CommandType.ARCHIVE_FIND;
+    }
+
+    /**
+     * Creates an executor that runs each session on its own virtual thread,
+     * falling back to a pool of daemon platform threads on JVMs without them.
+     */
+    private static ExecutorService newSessionExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "sagiri-session");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
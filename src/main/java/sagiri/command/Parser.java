@@ -1,96 +1,396 @@
 package sagiri.command;
 
 import sagiri.exception.SagiriException;
+import sagiri.task.DateCodec;
+import sagiri.task.Task;
+import sagiri.task.TaskFilter;
 
 public class Parser {
+    private static final String INVALID_TASK_NUMBER = "Nope that's not a valid task number";
+    private static final String INVALID_DATE =
+            "Invalid date format. Please use dd-mm-yy format (e.g., 25-12-24)";
+    private static final String INVALID_DAYS = "Nope that's not a valid number of days";
+    private static final String MISSING_KEYWORD = "Please provide a keyword to search for.";
+    private static final String UNKNOWN_COMMAND = "No clue what that means :((\n"
+            + "You can use todo, event, deadline, mark, unmark, delete, list, check, agenda, conflicts, "
+            + "find, archive, undo, redo, stats, or bye";
+    private static final String LIST_USAGE = "You can use: list [page] [size], list --from N, list --ids";
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int DEFAULT_AGENDA_DAYS = 7;
+    private static final int DEFAULT_ARCHIVE_DAYS = 30;
+    // Returned by parseNumber for text that Integer.parseInt would reject
+    private static final long NOT_A_NUMBER = Long.MIN_VALUE;
+
+    /**
+     * Keywords grouped by their first character, so that parse compares the
+     * input against at most two of them.
+     */
+    private static final Keyword[] KEYWORDS = new Keyword[128];
+    private static final TaskFilter[] FILTERS = TaskFilter.values();
+    private static final String[] FILTER_WORDS = new String[FILTERS.length];
+
+    static {
+        register("list", CommandType.LIST, Argument.OPTIONS);
+        register("mark", CommandType.MARK, Argument.INDEX);
+        register("unmark", CommandType.UNMARK, Argument.INDEX);
+        register("delete", CommandType.DELETE, Argument.INDEX);
+        register("check", CommandType.CHECK, Argument.DATE);
+        register("todo", CommandType.TODO, Argument.TEXT);
+        register("event", CommandType.EVENT, Argument.TEXT);
+        register("deadline", CommandType.DEADLINE, Argument.TEXT);
+        register("agenda", CommandType.AGENDA, Argument.DAYS);
+        register("conflicts", CommandType.CONFLICTS, Argument.NONE);
+        register("find", CommandType.FIND, Argument.KEYWORD);
+        register("archive", CommandType.ARCHIVE, Argument.ARCHIVE);
+        register("undo", CommandType.UNDO, Argument.NONE);
+        register("redo", CommandType.REDO, Argument.NONE);
+        register("stats", CommandType.STATS, Argument.NONE);
+        register("bye", CommandType.BYE, Argument.NONE);
+        for (int i = 0; i < FILTERS.length; i++) {
+            FILTER_WORDS[i] = FILTERS[i].name().toLowerCase();
+        }
+    }
 
     /**
      * Parses the user input and returns a ParsedCommand.
      * Throws SagiriException for invalid inputs.
+     *
+     * The keyword is looked up in a table and its argument is read straight
+     * from the input, so the only allocations are the result and, for
+     * commands that carry text, its data string.
      */
     public static ParsedCommand parse(String input) throws SagiriException {
-        if (input.equals("list")) {
-            return new ParsedCommand(CommandType.LIST);
-        } else if (input.startsWith("mark ")) {
-            try {
-                int taskNumber = Integer.parseInt(input.split(" ")[1]) - 1;
-                return new ParsedCommand(CommandType.MARK, taskNumber);
-            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
-                throw new SagiriException("Nope that's not a valid task number");
+        Keyword keyword = lookup(input);
+        if (keyword == null) {
+            throw new SagiriException(UNKNOWN_COMMAND);
+        }
+        int start = keyword.word.length() + 1;
+        switch (keyword.argument) {
+        case NONE:
+            return new ParsedCommand(keyword.type);
+        case OPTIONS:
+            return parseListOptions(input, start);
+        case INDEX:
+            return parseSelection(keyword.type, input, start);
+        case DATE:
+            return parseDates(keyword.type, input, start);
+        case DAYS:
+            return parseDays(keyword.type, input, start);
+        case ARCHIVE:
+            return parseArchive(input, start);
+        case KEYWORD:
+        case TEXT: {
+            int end = trimEnd(input, start);
+            start = trimStart(input, start, end);
+            if (keyword.argument == Argument.KEYWORD && start == end) {
+                throw new SagiriException(MISSING_KEYWORD);
             }
-        } else if (input.startsWith("unmark ")) {
-            try {
-                int taskNumber = Integer.parseInt(input.split(" ")[1]) - 1;
-                return new ParsedCommand(CommandType.UNMARK, taskNumber);
-            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
-                throw new SagiriException("Nope that's not a valid task number");
+            return new ParsedCommand(keyword.type, input.substring(start, end));
+        }
+        default:
+            throw new AssertionError(keyword.argument);
+        }
+    }
+
+    /**
+     * Finds the keyword the input starts with. Keywords without an argument
+     * must be the whole input, keywords with options may be, and the others
+     * must be followed by a space.
+     */
+    private static Keyword lookup(String input) {
+        if (input.isEmpty() || input.charAt(0) >= KEYWORDS.length) {
+            return null;
+        }
+        for (Keyword keyword = KEYWORDS[input.charAt(0)]; keyword != null; keyword = keyword.next) {
+            int length = keyword.word.length();
+            if (!input.startsWith(keyword.word)) {
+                continue;
             }
-        } else if (input.startsWith("delete ")) {
-            try {
-                int taskNumber = Integer.parseInt(input.split(" ")[1]) - 1;
-                return new ParsedCommand(CommandType.DELETE, taskNumber);
-            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
-                throw new SagiriException("Nope that's not a valid task number");
+            boolean isAlone = input.length() == length;
+            boolean hasArgument = input.length() > length && input.charAt(length) == ' ';
+            if (keyword.argument == Argument.NONE ? isAlone
+                    : keyword.argument == Argument.OPTIONS || keyword.argument == Argument.DAYS
+                            || keyword.argument == Argument.ARCHIVE ? isAlone || hasArgument : hasArgument) {
+                return keyword;
             }
-        } else if (input.startsWith("check ")) {
-            try {
-                String dateStr = input.substring(6).trim();
-                if (!isValidDateFormat(dateStr)) {
-                    throw new SagiriException("Invalid date format. Please use dd-mm-yy format (e.g., 25-12-24)");
-                }
-                return new ParsedCommand(CommandType.CHECK, dateStr);
-            } catch (StringIndexOutOfBoundsException e) {
-                throw new SagiriException("Invalid check command. Please use: check dd-mm-yy");
+        }
+        return null;
+    }
+
+    /**
+     * Reads the options of a list command: "--ids" to show each task's ID,
+     * and either a page number and optional page size, as in "list 3 50", or
+     * "--from" and a task number to start at, optionally followed by a size.
+     */
+    private static ParsedCommand parseListOptions(String input, int start) throws SagiriException {
+        ParsedCommand command = new ParsedCommand(CommandType.LIST);
+        int end = trimEnd(input, Math.min(start, input.length()));
+        long page = 0;
+        long size = 0;
+        long from = 0;
+        for (start = trimStart(input, Math.min(start, end), end); start < end; start = trimStart(input, start, end)) {
+            int next = tokenEnd(input, start, end);
+            long value = parseNumber(input, start, next);
+            if (next - start == 5 && input.startsWith("--ids", start)) {
+                command.showIds = true;
+            } else if (next - start == 6 && input.startsWith("--from", start) && page == 0 && from == 0) {
+                start = trimStart(input, next, end);
+                next = tokenEnd(input, start, end);
+                from = parsePositive(input, start, next, INVALID_TASK_NUMBER);
+            } else if (value == NOT_A_NUMBER || size != 0) {
+                throw new SagiriException("Unknown list option '" + input.substring(start, next) + "'. " + LIST_USAGE);
+            } else if (page == 0 && from == 0) {
+                page = parsePositive(input, start, next, "Nope that's not a valid page number");
+            } else {
+                size = parsePositive(input, start, next, "Nope that's not a valid page size");
             }
-        } else if (input.startsWith("todo ")) {
-            String taskName = input.substring(5).trim();
-            return new ParsedCommand(CommandType.TODO, taskName);
-        } else if (input.startsWith("event ")) {
-            String desc = input.substring(6).trim();
-            return new ParsedCommand(CommandType.EVENT, desc);
-        } else if (input.startsWith("deadline ")) {
-            String desc = input.substring(9).trim();
-            return new ParsedCommand(CommandType.DEADLINE, desc);
-        } else if (input.startsWith("find ")) {
-            String keyword = input.substring(5).trim();
-            if (keyword.isEmpty()) {
-                throw new SagiriException("Please provide a keyword to search for.");
+            start = next;
+        }
+        if (page != 0 || from != 0) {
+            command.pageSize = (int) (size == 0 ? DEFAULT_PAGE_SIZE : size);
+            long first = from != 0 ? from - 1 : (page - 1) * command.pageSize;
+            command.taskIndex = (int) Math.min(first, Integer.MAX_VALUE);
+        }
+        return command;
+    }
+
+    private static int tokenEnd(String input, int start, int end) {
+        int space = input.indexOf(' ', start);
+        return space < 0 || space > end ? end : space;
+    }
+
+    /**
+     * Parses a number that must be at least 1, e.g. a page number.
+     */
+    private static long parsePositive(String input, int start, int end, String error) throws SagiriException {
+        long value = parseNumber(input, start, end);
+        if (value < 1) {
+            throw new SagiriException(error);
+        }
+        return value;
+    }
+
+    /**
+     * Reads the argument of a check command: one date, or two joined by "to"
+     * such as "01-12-24 to 31-12-24".
+     */
+    private static ParsedCommand parseDates(CommandType type, String input, int start) throws SagiriException {
+        int end = trimEnd(input, start);
+        start = trimStart(input, start, end);
+        int to = input.indexOf(" to ", start);
+        if (to < 0 || to >= end) {
+            if (DateCodec.decode(input, start, end) == DateCodec.INVALID) {
+                throw new SagiriException(INVALID_DATE);
             }
-            return new ParsedCommand(CommandType.FIND, keyword);
-        } else if (input.equals("bye")) {
-            return new ParsedCommand(CommandType.BYE);
-        } else {
-            String msg = "No clue what that means :((\nYou can use todo, event, deadline, mark, unmark, delete, list, check, find, or bye";
-            throw new SagiriException(msg);
+            return new ParsedCommand(type, input.substring(start, end));
+        }
+        int fromEnd = trimEnd(input, start, to);
+        int toStart = trimStart(input, to + 4, end);
+        int fromDay = DateCodec.decode(input, start, fromEnd);
+        int toDay = DateCodec.decode(input, toStart, end);
+        if (fromDay == DateCodec.INVALID || toDay == DateCodec.INVALID) {
+            throw new SagiriException(INVALID_DATE);
         }
+        if (fromDay > toDay) {
+            throw new SagiriException("Nope that's not a valid date range");
+        }
+        ParsedCommand command = new ParsedCommand(type, input.substring(start, fromEnd));
+        command.endDate = input.substring(toStart, end);
+        return command;
+    }
+
+    /**
+     * Reads the optional number of days of an agenda command.
+     */
+    private static ParsedCommand parseDays(CommandType type, String input, int start) throws SagiriException {
+        ParsedCommand command = new ParsedCommand(type);
+        int end = trimEnd(input, Math.min(start, input.length()));
+        start = trimStart(input, Math.min(start, end), end);
+        command.days = start == end
+                ? DEFAULT_AGENDA_DAYS
+                : (int) parsePositive(input, start, end, INVALID_DAYS);
+        return command;
     }
 
     /**
-     * Validates if a date string is in "dd-mm-yy" format.
-     * 
-     * @param dateStr the date string to validate
-     * @return true if valid, false otherwise
+     * Reads the argument of an archive command: "find" and a keyword to
+     * search the archive for, or an optional number of days that done tasks
+     * must have been over for to be archived.
      */
-    private static boolean isValidDateFormat(String dateStr) {
-        if (dateStr == null || dateStr.length() != 8) {
-            return false;
-        }
-        try {
-            String[] parts = dateStr.split("-");
-            if (parts.length != 3) {
-                return false;
+    private static ParsedCommand parseArchive(String input, int start) throws SagiriException {
+        int end = trimEnd(input, Math.min(start, input.length()));
+        start = trimStart(input, Math.min(start, end), end);
+        int next = tokenEnd(input, start, end);
+        if (next - start == 4 && input.startsWith("find", start)) {
+            start = trimStart(input, next, end);
+            if (start == end) {
+                throw new SagiriException(MISSING_KEYWORD);
             }
-            int day = Integer.parseInt(parts[0]);
-            int month = Integer.parseInt(parts[1]);
-            int year = Integer.parseInt(parts[2]);
+            return new ParsedCommand(CommandType.ARCHIVE_FIND, input.substring(start, end));
+        }
+        ParsedCommand command = new ParsedCommand(CommandType.ARCHIVE);
+        long days = start == end ? DEFAULT_ARCHIVE_DAYS : parseNumber(input, start, end);
+        // NOT_A_NUMBER is negative too
+        if (days < 0) {
+            throw new SagiriException(INVALID_DAYS);
+        }
+        command.days = (int) days;
+        return command;
+    }
 
-            // Basic validation
-            if (day < 1 || day > 31 || month < 1 || month > 12 || year < 0 || year > 99) {
-                return false;
+    /**
+     * Reads the tasks a mark, unmark or delete command applies to, from the
+     * given position to the next space, ignoring anything after it: a task
+     * number, "#" and a task ID, a range of task numbers such as "3-10", or a
+     * filter such as "done".
+     */
+    private static ParsedCommand parseSelection(CommandType type, String input, int start)
+            throws SagiriException {
+        int end = input.indexOf(' ', start);
+        if (end < 0) {
+            end = input.length();
+        }
+        for (int i = 0; i < FILTERS.length; i++) {
+            if (end - start == FILTER_WORDS[i].length() && input.startsWith(FILTER_WORDS[i], start)) {
+                return new ParsedCommand(type, FILTERS[i]);
+            }
+        }
+        if (start < end && input.charAt(start) == '#') {
+            long id = isDigit(input, start + 1) ? parseNumber(input, start + 1, end) : NOT_A_NUMBER;
+            if (id == NOT_A_NUMBER) {
+                throw new SagiriException("Nope that's not a valid task ID");
             }
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
+            ParsedCommand command = new ParsedCommand(type, -1);
+            command.taskId = id;
+            return command;
+        }
+
+        // A dash after the first character can only be a range; a leading one is a sign
+        int dash = input.indexOf('-', start + 1);
+        if (dash < 0 || dash >= end) {
+            long value = parseNumber(input, start, end);
+            if (value == NOT_A_NUMBER) {
+                throw new SagiriException(INVALID_TASK_NUMBER);
+            }
+            return new ParsedCommand(type, (int) value - 1);
+        }
+        long from = isDigit(input, start) ? parseNumber(input, start, dash) : NOT_A_NUMBER;
+        long to = isDigit(input, dash + 1) ? parseNumber(input, dash + 1, end) : NOT_A_NUMBER;
+        if (from == NOT_A_NUMBER || to == NOT_A_NUMBER) {
+            throw new SagiriException(INVALID_TASK_NUMBER);
+        }
+        if (from > to) {
+            throw new SagiriException("Nope that's not a valid task range");
+        }
+        return new ParsedCommand(type, (int) from - 1, (int) to - 1);
+    }
+
+    private static boolean isDigit(String input, int index) {
+        return index < input.length() && Character.digit(input.charAt(index), 10) >= 0;
+    }
+
+    /**
+     * Parses an int from input[start, end) with the same rules as
+     * Integer.parseInt: an optional sign, then one or more decimal digits.
+     *
+     * @return the value, or NOT_A_NUMBER if the text is not an int
+     */
+    private static long parseNumber(String input, int start, int end) {
+        if (start >= end) {
+            return NOT_A_NUMBER;
+        }
+        boolean isNegative = false;
+        char first = input.charAt(start);
+        if (first == '-' || first == '+') {
+            isNegative = first == '-';
+            start++;
+            if (start == end) {
+                return NOT_A_NUMBER;
+            }
+        }
+        long limit = isNegative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = Character.digit(input.charAt(i), 10);
+            if (digit < 0) {
+                return NOT_A_NUMBER;
+            }
+            value = value * 10 + digit;
+            if (value > limit) {
+                return NOT_A_NUMBER;
+            }
+        }
+        return isNegative ? -value : value;
+    }
+
+    /**
+     * Skips leading characters that String.trim would remove.
+     */
+    private static int trimStart(String input, int start, int end) {
+        while (start < end && input.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * Finds the end of the input once trailing characters that String.trim
+     * would remove are dropped.
+     */
+    private static int trimEnd(String input, int start) {
+        return trimEnd(input, start, input.length());
+    }
+
+    /**
+     * Finds the end of input[start, end) once trailing characters that
+     * String.trim would remove are dropped.
+     */
+    private static int trimEnd(String input, int start, int end) {
+        while (end > start && input.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private static void register(String word, CommandType type, Argument argument) {
+        char first = word.charAt(0);
+        KEYWORDS[first] = new Keyword(word, type, argument, KEYWORDS[first]);
+    }
+
+    /**
+     * Kinds of argument a command keyword takes.
+     */
+    private enum Argument {
+        // No argument; the keyword is the whole input
+        NONE,
+        // Optional options after the keyword
+        OPTIONS,
+        // A 1-based task number, a range of them, or a TaskFilter
+        INDEX,
+        // A dd-mm-yy date, or two joined by "to"
+        DATE,
+        // An optional number of days
+        DAYS,
+        // "find" and a keyword, or an optional number of days
+        ARCHIVE,
+        // Free text, possibly empty
+        TEXT,
+        // Free text that must not be empty
+        KEYWORD
+    }
+
+    private static final class Keyword {
+        private final String word;
+        private final CommandType type;
+        private final Argument argument;
+        // Next keyword with the same first character
+        private final Keyword next;
+
+        Keyword(String word, CommandType type, Argument argument, Keyword next) {
+            this.word = word;
+            this.type = type;
+            this.argument = argument;
+            this.next = next;
         }
     }
 
@@ -98,13 +398,31 @@ public class Parser {
      * Enum of command types.
      */
     public enum CommandType {
-        LIST, MARK, UNMARK, DELETE, TODO, EVENT, DEADLINE, CHECK, FIND, BYE
+        LIST, MARK, UNMARK, DELETE, TODO, EVENT, DEADLINE, CHECK, AGENDA, CONFLICTS, FIND, ARCHIVE, ARCHIVE_FIND,
+        UNDO, REDO, STATS, BYE
     }
 
     public static class ParsedCommand {
         public CommandType type;
         public String data;
         public int taskIndex;
+        // Last task of a range such as "mark 3-10"; equal to taskIndex for one task
+        public int taskEndIndex;
+        // Set instead of the indexes for commands such as "delete done"
+        public TaskFilter filter;
+        // Set instead of the indexes for commands such as "delete #12"
+        public long taskId = Task.NO_ID;
+        // Set by "list --ids"
+        public boolean showIds;
+        // Tasks per page for "list 2" or "list --from 40", which start at
+        // taskIndex; 0 lists every task
+        public int pageSize;
+        // Last date of "check 01-12-24 to 31-12-24"; null when checking one day
+        public String endDate;
+        // Days covered by "agenda", starting today, or that done deadlines and
+        // events must have been over for to be moved by "archive"; done todos
+        // are always moved
+        public int days;
 
         public ParsedCommand(CommandType type) {
             this.type = type;
@@ -116,8 +434,26 @@ public class Parser {
         }
 
         public ParsedCommand(CommandType type, int taskIndex) {
+            this(type, taskIndex, taskIndex);
+        }
+
+        public ParsedCommand(CommandType type, int taskIndex, int taskEndIndex) {
             this.type = type;
             this.taskIndex = taskIndex;
+            this.taskEndIndex = taskEndIndex;
+        }
+
+        public ParsedCommand(CommandType type, TaskFilter filter) {
+            this.type = type;
+            this.filter = filter;
+        }
+
+        /**
+         * Checks if the command applies to a range or filter rather than a
+         * single task.
+         */
+        public boolean isBulk() {
+            return filter != null || taskEndIndex != taskIndex;
         }
     }
 }
@@ -0,0 +1,27 @@
+package sagiri.stats;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for one command run through processCommand. The
+ * event's duration covers execute, render and persist, but not parsing.
+ */
+@Name("sagiri.Command")
+@Label("Command")
+@Category("Sagiri")
+@Description("A command run against the task list")
+public class CommandEvent extends Event {
+    @Label("Command Type")
+    public String type;
+
+    @Label("Task Count")
+    @Description("Number of tasks in the list after the command")
+    public int taskCount;
+
+    @Label("Failed")
+    public boolean isFailed;
+}
@@ -0,0 +1,132 @@
+package sagiri.stats;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import sagiri.command.Parser.CommandType;
+
+/**
+ * Latency histograms for each command type, split into the phases of a
+ * command: parsing the input, executing it on the task list, rendering the
+ * reply and persisting the change.
+ *
+ * Phases are timed by chaining lap calls, each of which costs one nanoTime
+ * and a few atomic increments. Timing can be turned off with
+ * -Dsagiri.stats=false, and -Dsagiri.stats.file=FILE has the summary
+ * written to FILE on bye.
+ */
+public class CommandStats {
+
+    /**
+     * Phases of a command.
+     */
+    public enum Phase {
+        PARSE, EXECUTE, RENDER, PERSIST
+    }
+
+    private static final boolean IS_ENABLED = !"false".equals(System.getProperty("sagiri.stats"));
+    private static final String DUMP_FILE = System.getProperty("sagiri.stats.file");
+    private static final int PHASES = Phase.values().length;
+
+    private static AtomicReferenceArray<Histogram> histograms =
+            new AtomicReferenceArray<>(CommandType.values().length * PHASES);
+
+    /**
+     * Gets the time to start timing the first phase from.
+     */
+    public static long start() {
+        return IS_ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time since start as a phase of a command.
+     *
+     * @param type the command being timed
+     * @param phase the phase that just ended
+     * @param start when the phase started
+     * @return the current time, to start timing the next phase from
+     */
+    public static long lap(CommandType type, Phase phase, long start) {
+        if (!IS_ENABLED) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        histogramFor(type, phase).record(now - start);
+        return now;
+    }
+
+    /**
+     * Gets the histogram of a phase of a command, or null if nothing has been
+     * recorded for it.
+     */
+    public static Histogram get(CommandType type, Phase phase) {
+        return histograms.get(type.ordinal() * PHASES + phase.ordinal());
+    }
+
+    /**
+     * Discards everything recorded so far.
+     */
+    public static void reset() {
+        histograms = new AtomicReferenceArray<>(histograms.length());
+    }
+
+    /**
+     * Summarises the recorded phases as a table, one line per phase of each
+     * command that has been timed, with latencies in microseconds.
+     *
+     * @return the header and rows, or an empty list if nothing was recorded
+     */
+    public static List<String> summary() {
+        List<String> lines = new ArrayList<>();
+        for (CommandType type : CommandType.values()) {
+            for (Phase phase : Phase.values()) {
+                Histogram histogram = get(type, phase);
+                if (histogram == null || histogram.getCount() == 0) {
+                    continue;
+                }
+                if (lines.isEmpty()) {
+                    lines.add(String.format("%-9s %-8s %8s %9s %9s %9s %9s",
+                            "command", "phase", "count", "p50", "p90", "p99", "max"));
+                }
+                lines.add(String.format("%-9s %-8s %8d %9s %9s %9s %9s",
+                        type.name().toLowerCase(), phase.name().toLowerCase(), histogram.getCount(),
+                        micros(histogram.getPercentile(0.50)), micros(histogram.getPercentile(0.90)),
+                        micros(histogram.getPercentile(0.99)), micros(histogram.getMax())));
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Writes the summary to the file given by -Dsagiri.stats.file, if any.
+     */
+    public static void dumpIfRequested() {
+        if (DUMP_FILE == null || !IS_ENABLED) {
+            return;
+        }
+        try {
+            Files.write(Paths.get(DUMP_FILE), summary(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.out.println("Error writing stats: " + e.getMessage());
+        }
+    }
+
+    private static Histogram histogramFor(CommandType type, Phase phase) {
+        int index = type.ordinal() * PHASES + phase.ordinal();
+        Histogram histogram = histograms.get(index);
+        if (histogram == null) {
+            histograms.compareAndSet(index, null, new Histogram());
+            histogram = histograms.get(index);
+        }
+        return histogram;
+    }
+
+    private static String micros(long nanos) {
+        return String.format("%.1f", nanos / 1000.0);
+    }
+}
@@ -0,0 +1,31 @@
+package sagiri.stats;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for loading the data file at startup, not counting
+ * the journal replay that follows it.
+ */
+@Name("sagiri.Load")
+@Label("Load Tasks")
+@Category("Sagiri")
+@Description("Tasks loaded from a data file")
+public class LoadEvent extends Event {
+    @Label("File")
+    public String file;
+
+    @Label("Bytes Read")
+    @DataAmount
+    public long bytes;
+
+    @Label("Records")
+    public int records;
+
+    @Label("Parallel")
+    public boolean isParallel;
+}
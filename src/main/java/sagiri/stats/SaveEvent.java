@@ -0,0 +1,28 @@
+package sagiri.stats;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for writing a full snapshot of the task list, from
+ * journal compaction or a data file conversion.
+ */
+@Name("sagiri.Save")
+@Label("Save Tasks")
+@Category("Sagiri")
+@Description("Tasks written to a data file")
+public class SaveEvent extends Event {
+    @Label("File")
+    public String file;
+
+    @Label("Bytes Written")
+    @DataAmount
+    public long bytes;
+
+    @Label("Records")
+    public int records;
+}
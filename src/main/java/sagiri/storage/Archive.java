@@ -0,0 +1,116 @@
+package sagiri.storage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import sagiri.exception.SagiriException;
+
+import sagiri.task.Task;
+
+/**
+ * Cold storage for done tasks moved out of the task list by the archive
+ * command, in ./data/Sagiri.archive.gz.
+ *
+ * Each archive run appends one gzip member holding the tasks as lines in the
+ * data file format, so archiving never rewrites what is already there, while
+ * the data file and journal stop carrying the tasks. Searches stream the file
+ * from disk and only decode lines that can match, so they never hold more
+ * than the matches in memory.
+ */
+public class Archive {
+    public static final Path ARCHIVE_FILE = Paths.get("./data/Sagiri.archive.gz");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Appends tasks to the archive and forces them to disk, so that they can
+     * safely be deleted from the task list afterwards.
+     *
+     * @param tasks the tasks to archive
+     * @param file the archive file, created if missing
+     */
+    public static void append(List<Task> tasks, Path file) throws SagiriException {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND)) {
+                GZIPOutputStream gzip = new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+                Writer writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8), BUFFER_SIZE);
+                for (Task task : tasks) {
+                    writer.write(Storage.formatTask(task, task.isDone()));
+                    writer.write('\n');
+                }
+                writer.flush();
+                gzip.finish();
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            throw new SagiriException("Error writing archive: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Streams the archive, passing each task whose name contains the keyword,
+     * ignoring case, to the action as soon as it is read. A task archived more
+     * than once, e.g. when the process died before deleting it from the task
+     * list, is only passed once.
+     * Throws SagiriException if the archive is corrupted.
+     *
+     * @param file the archive file; a missing file is an empty archive
+     * @param keyword the keyword to search for
+     * @param action receives the matching tasks in archive order
+     * @return the number of matching tasks
+     */
+    public static int find(Path file, String keyword, Consumer<Task> action) throws SagiriException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        String lowerKeyword = keyword.toLowerCase();
+        HashSet<String> seen = new HashSet<>();
+        int count = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file), BUFFER_SIZE), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            int lineNum = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNum++;
+                // A line that does not contain the keyword anywhere cannot match by name
+                if (line.isBlank() || !line.toLowerCase().contains(lowerKeyword)) {
+                    continue;
+                }
+                Task task;
+                try {
+                    task = Storage.parseTask(line);
+                } catch (SagiriException e) {
+                    throw new SagiriException("Corrupted archive at line " + lineNum + ": " + e.getMessage());
+                }
+                if (task.getName().toLowerCase().contains(lowerKeyword) && seen.add(line)) {
+                    action.accept(task);
+                    count++;
+                }
+            }
+        } catch (IOException e) {
+            throw new SagiriException("Error reading archive: " + e.getMessage());
+        }
+        return count;
+    }
+}
@@ -0,0 +1,269 @@
+package sagiri.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.List;
+
+import sagiri.exception.SagiriException;
+
+import sagiri.task.DateCodec;
+import sagiri.task.Task;
+import sagiri.task.TaskList;
+import sagiri.task.TaskType;
+
+/**
+ * Compact binary data file format, loaded through a memory-mapped buffer.
+ *
+ * Layout (big-endian):
+ * header: magic "SGRB" (int) | version (byte) | task count (int) | next id (long)
+ *         | journal generation (long)
+ * record: flags (byte) | id (long) | [start epoch-day (int)] | [end epoch-day (int)] | name length (int)
+ *         | UTF-8 name
+ * The low two bits of flags hold the task type (0 = todo, 1 = event,
+ * 2 = deadline) and bit 2 is set when the task is done. Events store both
+ * dates, deadlines store only the end date and todos store none.
+ * The next id is the lowest ID TaskList may hand out, or -1 if unknown, and
+ * the generation is the last journal generation the file includes, or 0.
+ * Version 1 files have no id field; their tasks are given fresh IDs.
+ * Version 2 files have no next id, and versions before 4 no generation.
+ */
+public class BinaryStorage {
+    public static final int MAGIC = 0x53475242; // "SGRB"
+    public static final byte VERSION = 4;
+    private static final byte VERSION_WITHOUT_IDS = 1;
+    private static final byte VERSION_WITH_NEXT_ID = 3;
+    private static final byte VERSION_WITH_GENERATION = 4;
+    // Magic, version, task count, next id and generation
+    private static final int HEADER_BYTES = 4 + 1 + 4 + 8 + 8;
+
+    private static final int TYPE_MASK = 0x03;
+    private static final int DONE_FLAG = 0x04;
+
+    /**
+     * Checks if the given data file uses the binary format, by extension.
+     */
+    public static boolean isBinaryFile(Path file) {
+        return file.getFileName().toString().endsWith(".bin");
+    }
+
+    /**
+     * Loads tasks from a binary data file into the task list.
+     * Throws SagiriException if the file is truncated or corrupted.
+     */
+    public static void loadTasks(TaskList taskList, Path file) throws SagiriException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            decode(taskList, buffer);
+        } catch (IOException e) {
+            throw new SagiriException("Error reading data file: " + e.getMessage());
+        }
+    }
+
+    private static void decode(TaskList taskList, MappedByteBuffer buffer) throws SagiriException {
+        int count;
+        byte version;
+        long nextId = Task.NO_ID;
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new SagiriException("Corrupted binary data file: not a Sagiri data file");
+            }
+            version = buffer.get();
+            if (version < VERSION_WITHOUT_IDS || version > VERSION) {
+                throw new SagiriException("Unsupported binary data file version " + version
+                        + ". Expected " + VERSION);
+            }
+            count = buffer.getInt();
+            if (version >= VERSION_WITH_NEXT_ID) {
+                nextId = buffer.getLong();
+            }
+            if (version >= VERSION_WITH_GENERATION) {
+                buffer.getLong();
+            }
+        } catch (BufferUnderflowException e) {
+            throw new SagiriException("Corrupted binary data file: truncated header");
+        }
+
+        byte[] nameBytes = new byte[64];
+        for (int recordNum = 1; recordNum <= count; recordNum++) {
+            try {
+                int flags = buffer.get();
+                long id = version == VERSION_WITHOUT_IDS ? Task.NO_ID : buffer.getLong();
+                LocalDateTime start = null;
+                LocalDateTime end = null;
+                TaskType type;
+                switch (flags & TYPE_MASK) {
+                case 0:
+                    type = TaskType.TODO;
+                    break;
+                case 1:
+                    type = TaskType.EVENT;
+                    start = DateCodec.toDateTime(buffer.getInt());
+                    end = DateCodec.toDateTime(buffer.getInt());
+                    break;
+                case 2:
+                    type = TaskType.DEADLINE;
+                    end = DateCodec.toDateTime(buffer.getInt());
+                    break;
+                default:
+                    throw new SagiriException("Corrupted binary data file at record " + recordNum
+                            + ": Invalid task type " + (flags & TYPE_MASK));
+                }
+
+                int nameLength = buffer.getInt();
+                if (nameLength <= 0 || nameLength > buffer.remaining()) {
+                    throw new SagiriException("Corrupted binary data file at record " + recordNum
+                            + ": Invalid name length " + nameLength);
+                }
+                if (nameBytes.length < nameLength) {
+                    nameBytes = new byte[Math.max(nameLength, nameBytes.length * 2)];
+                }
+                buffer.get(nameBytes, 0, nameLength);
+                String name = new String(nameBytes, 0, nameLength, StandardCharsets.UTF_8);
+
+                Task task = Task.of(name, type, start, end, id);
+                if ((flags & DONE_FLAG) != 0) {
+                    task.markAsDone();
+                }
+                try {
+                    taskList.addTask(task);
+                } catch (SagiriException e) {
+                    throw new SagiriException("Corrupted binary data file at record " + recordNum + ": "
+                            + e.getMessage());
+                }
+            } catch (BufferUnderflowException e) {
+                throw new SagiriException("Corrupted binary data file at record " + recordNum
+                        + ": Expected " + count + " records, file is truncated");
+            } catch (DateTimeException e) {
+                throw new SagiriException("Corrupted binary data file at record " + recordNum
+                        + ": Invalid date");
+            }
+        }
+        taskList.reserveIds(nextId);
+    }
+
+    /**
+     * Writes the given tasks to a binary data file.
+     *
+     * @param tasks the tasks to write, in list order
+     * @param done the done status of each task, by position
+     * @param nextId the next ID to hand out, or Task.NO_ID
+     * @param generation the last journal generation included, or 0
+     * @param file the file to write
+     */
+    static void write(List<Task> tasks, BitSet done, long nextId, long generation, Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(tasks.size());
+            out.writeLong(nextId);
+            out.writeLong(generation);
+            for (int i = 0; i < tasks.size(); i++) {
+                Task task = tasks.get(i);
+                int flags = done.get(i) ? DONE_FLAG : 0;
+                switch (task.getType()) {
+                case EVENT:
+                    out.writeByte(flags | 1);
+                    out.writeLong(task.getId());
+                    out.writeInt(DateCodec.toEpochDay(task.getStartDateTime()));
+                    out.writeInt(DateCodec.toEpochDay(task.getEndDateTime()));
+                    break;
+                case DEADLINE:
+                    out.writeByte(flags | 2);
+                    out.writeLong(task.getId());
+                    out.writeInt(DateCodec.toEpochDay(task.getEndDateTime()));
+                    break;
+                default:
+                    out.writeByte(flags);
+                    out.writeLong(task.getId());
+                    break;
+                }
+                byte[] name = task.getName().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(name.length);
+                out.write(name);
+            }
+        }
+    }
+
+    /**
+     * Reads the last journal generation a binary data file includes.
+     *
+     * @return the generation, or 0 for files from before generations
+     */
+    static long readGeneration(Path file) throws SagiriException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Keep reading until the header is complete or the file ends
+            }
+        } catch (IOException e) {
+            throw new SagiriException("Error reading data file: " + e.getMessage());
+        }
+        header.flip();
+        if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.get() != VERSION) {
+            return 0;
+        }
+        return header.getLong(HEADER_BYTES - 8);
+    }
+
+    /**
+     * Converts a text data file to the binary format.
+     */
+    public static void convertToBinary(Path textFile, Path binaryFile) throws SagiriException {
+        TaskList taskList = new TaskList();
+        Storage.loadTasks(taskList, textFile);
+        writeConverted(taskList, Storage.readGeneration(textFile), binaryFile);
+    }
+
+    /**
+     * Converts a binary data file to the text format.
+     */
+    public static void convertToText(Path binaryFile, Path textFile) throws SagiriException {
+        TaskList taskList = new TaskList();
+        loadTasks(taskList, binaryFile);
+        writeConverted(taskList, readGeneration(binaryFile), textFile);
+    }
+
+    private static void writeConverted(TaskList taskList, long generation, Path target) throws SagiriException {
+        try {
+            Storage.writeSnapshot(taskList.snapshot(), taskList.getNextId(), generation, target);
+        } catch (IOException e) {
+            throw new SagiriException("Error writing " + target + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Converts between the text and binary formats.
+     * Usage: BinaryStorage (to-binary | to-text) input output
+     */
+    public static void main(String[] args) {
+        if (args.length != 3 || !(args[0].equals("to-binary") || args[0].equals("to-text"))) {
+            System.out.println("Usage: BinaryStorage (to-binary | to-text) <input> <output>");
+            return;
+        }
+        try {
+            if (args[0].equals("to-binary")) {
+                convertToBinary(Paths.get(args[1]), Paths.get(args[2]));
+            } else {
+                convertToText(Paths.get(args[1]), Paths.get(args[2]));
+            }
+        } catch (SagiriException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package sagiri.storage;
+
+/**
+ * How eagerly journal records are pushed to disk.
+ */
+public enum Durability {
+    /** Every command waits until its record has been flushed. */
+    ALWAYS,
+    /** Records are flushed in the background at most every interval. */
+    INTERVAL,
+    /** Records are only flushed on commit, bye, or JVM shutdown. */
+    EXIT;
+
+    /**
+     * Parses a policy name as given in the sagiri.durability system property.
+     *
+     * @param name "always", "interval" or "exit", in any case
+     * @return the matching policy, or ALWAYS if name is null or unknown
+     */
+    public static Durability parse(String name) {
+        if (name != null) {
+            for (Durability durability : values()) {
+                if (durability.name().equalsIgnoreCase(name.trim())) {
+                    return durability;
+                }
+            }
+        }
+        return ALWAYS;
+    }
+}
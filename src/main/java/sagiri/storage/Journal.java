@@ -0,0 +1,565 @@
+package sagiri.storage;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import sagiri.exception.SagiriException;
+
+import sagiri.task.Change;
+import sagiri.task.Task;
+import sagiri.task.TaskList;
+
+/**
+ * Write-ahead journal for the task list.
+ *
+ * Every mutation appends one small record to ./data/Sagiri.journal instead of
+ * rewriting the whole data file. Records are replayed on top of the snapshot in
+ * ./data/Sagiri.dat when tasks are loaded. Once the journal grows past a
+ * threshold it is rotated to Sagiri.journal.old and folded into a fresh
+ * snapshot on a background thread.
+ *
+ * Records are written by a JournalWriter thread, so commands only wait for
+ * the disk if the durability policy is ALWAYS.
+ *
+ * Records refer to tasks by position, so each must be replayed exactly once.
+ * Every journal file starts with its generation, one more than that of the
+ * journal before it, and a snapshot records the last generation it includes.
+ * Replay skips journals the snapshot already includes, such as a rotated
+ * journal left behind when the process died just after its snapshot was
+ * written.
+ *
+ * Record format, one per line:
+ * G | generation                          (first line of every journal file)
+ * A | type | marked | name | start | end | id
+ *                                         (task added to the end of the list)
+ * I | position | type | marked | name | start | end | id
+ *                                         (deleted task put back by undo)
+ * M | positions                           (tasks marked as done)
+ * U | positions                           (tasks marked as not done)
+ * D | positions                           (tasks deleted)
+ * where positions are 0-based positions in the list at the time of the
+ * change: a single index, or for bulk commands a comma-separated list of
+ * indexes and inclusive ranges such as "0-4999,5002". Journals written
+ * before generations have no G record and count as generation 1.
+ */
+public class Journal {
+    public static final long DEFAULT_COMPACTION_THRESHOLD = 1024 * 1024;
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 200;
+
+    private final TaskList taskList;
+    private final Path snapshotFile;
+    private final Path journalFile;
+    private final Path rotatedFile;
+    private final long compactionThreshold;
+    private final ExecutorService compactor;
+
+    private final JournalWriter writer;
+    // Generation of the live journal file
+    private volatile long generation;
+    private long journalBytes;
+    private volatile boolean isCompacting;
+    private volatile Future<?> pendingCompaction;
+    private boolean isClosed;
+
+    /**
+     * Constructor for Journal.
+     *
+     * @param taskList the task list whose changes are being recorded
+     * @param snapshotFile the data file the journal is compacted into
+     * @param compactionThreshold journal size in bytes that triggers compaction
+     */
+    public Journal(TaskList taskList, Path snapshotFile, long compactionThreshold) throws SagiriException {
+        this(taskList, snapshotFile, compactionThreshold, Durability.ALWAYS, DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Constructor for Journal with a durability policy. The task list must
+     * hold the snapshot with the journal replayed, as after
+     * Storage.loadTasks. A rotated journal left by a compaction that did not
+     * finish is folded into a fresh snapshot straight away.
+     *
+     * @param taskList the task list whose changes are being recorded
+     * @param snapshotFile the data file the journal is compacted into
+     * @param compactionThreshold journal size in bytes that triggers compaction
+     * @param durability when records are flushed to disk
+     * @param flushIntervalMillis longest time records stay unflushed under INTERVAL
+     */
+    public Journal(TaskList taskList, Path snapshotFile, long compactionThreshold, Durability durability,
+            long flushIntervalMillis) throws SagiriException {
+        this.taskList = taskList;
+        this.snapshotFile = snapshotFile;
+        this.journalFile = journalFileFor(snapshotFile);
+        this.rotatedFile = rotatedFileFor(snapshotFile);
+        this.compactionThreshold = compactionThreshold;
+        this.compactor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sagiri-journal-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            long applied = Storage.readGeneration(Storage.snapshotToLoad(snapshotFile));
+            if (Files.exists(rotatedFile)) {
+                applied = Math.max(applied, Math.max(readGeneration(rotatedFile), readGeneration(journalFile)));
+                Storage.writeSnapshot(taskList.snapshot(), taskList.getNextId(), applied, snapshotFile);
+                Files.delete(rotatedFile);
+            }
+            long live = readGeneration(journalFile);
+            if (live != 0 && live <= applied) {
+                // Already in the snapshot, e.g. folded in just before a crash
+                Files.delete(journalFile);
+                live = 0;
+            }
+            this.generation = live != 0 ? live : applied + 1;
+            this.journalBytes = Files.exists(journalFile) ? Files.size(journalFile) : 0;
+            this.writer = new JournalWriter(journalFile, header(generation), durability, flushIntervalMillis);
+        } catch (IOException e) {
+            throw new SagiriException("Error opening journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Opens the journal for ./data/Sagiri.dat and closes it again on JVM
+     * shutdown, so buffered records are not lost if bye is never typed.
+     * The compaction threshold can be overridden with the
+     * sagiri.journal.threshold system property (in bytes), and the durability
+     * policy with sagiri.durability ("always", "interval" or "exit") and
+     * sagiri.durability.interval (in milliseconds).
+     */
+    public static Journal open(TaskList taskList) throws SagiriException {
+        long threshold = Long.getLong("sagiri.journal.threshold", DEFAULT_COMPACTION_THRESHOLD);
+        Durability durability = Durability.parse(System.getProperty("sagiri.durability"));
+        long interval = Long.getLong("sagiri.durability.interval", DEFAULT_FLUSH_INTERVAL_MILLIS);
+        Journal journal = new Journal(taskList, Storage.DATA_FILE, threshold, durability, interval);
+        Runtime.getRuntime().addShutdownHook(new Thread(journal::close, "sagiri-journal-shutdown"));
+        return journal;
+    }
+
+    /**
+     * Records a task added to the end of the list.
+     */
+    public void logAdd(Task task) {
+        append("A | " + Storage.formatTask(task, task.isDone()));
+    }
+
+    /**
+     * Records a task marked as done.
+     */
+    public void logMark(int taskIndex) {
+        append("M | " + taskIndex);
+    }
+
+    /**
+     * Records a task marked as not done.
+     */
+    public void logUnmark(int taskIndex) {
+        append("U | " + taskIndex);
+    }
+
+    /**
+     * Records a task deleted from the list.
+     */
+    public void logDelete(int taskIndex) {
+        append("D | " + taskIndex);
+    }
+
+    /**
+     * Records tasks marked as done by one bulk command, in a single record.
+     */
+    public void logMark(BitSet positions) {
+        append("M | " + formatPositions(positions));
+    }
+
+    /**
+     * Records tasks marked as not done by one bulk command, in a single record.
+     */
+    public void logUnmark(BitSet positions) {
+        append("U | " + formatPositions(positions));
+    }
+
+    /**
+     * Records tasks deleted by one bulk command, in a single record.
+     */
+    public void logDelete(BitSet positions) {
+        append("D | " + formatPositions(positions));
+    }
+
+    /**
+     * Records a change made by undo or redo. Tasks put back are written one
+     * record each, in order of position, so each lands where it was; the
+     * compaction threshold is only checked once all of them are submitted,
+     * as a snapshot taken in between would already hold the later tasks.
+     */
+    public void logChange(Change change) {
+        switch (change.getKind()) {
+        case INSERT:
+            BitSet positions = change.getPositions();
+            int position = positions.nextSetBit(0);
+            for (Task task : change.getTasks()) {
+                submit("I | " + position + " | " + Storage.formatTask(task, task.isDone()));
+                position = positions.nextSetBit(position + 1);
+            }
+            compactIfDue();
+            break;
+        case DELETE:
+            logDelete(change.getPositions());
+            break;
+        case MARK:
+            logMark(change.getPositions());
+            break;
+        default:
+            logUnmark(change.getPositions());
+            break;
+        }
+    }
+
+    /**
+     * Sets whether records are flushed according to the durability policy.
+     * When off, records are buffered until commit is called, so that a batch
+     * of commands can be committed together.
+     */
+    public void setAutoFlush(boolean isAutoFlush) {
+        writer.setDurability(isAutoFlush ? null : Durability.EXIT);
+    }
+
+    /**
+     * Flushes any buffered records and waits for them to reach the file.
+     *
+     * @return whether there were records to flush
+     */
+    public boolean commit() {
+        return writer.flush();
+    }
+
+    /**
+     * Starts a compaction now instead of waiting for the journal to grow,
+     * e.g. after many tasks were archived, so the data file shrinks to the
+     * remaining tasks. Does nothing if a compaction is already running.
+     */
+    public void checkpoint() {
+        compact();
+    }
+
+    /**
+     * Flushes the journal and waits for any running compaction to finish.
+     * Closing an already closed journal does nothing.
+     */
+    public void close() {
+        synchronized (this) {
+            if (isClosed) {
+                return;
+            }
+            isClosed = true;
+        }
+        writer.close();
+        try {
+            if (pendingCompaction != null) {
+                pendingCompaction.get();
+            }
+        } catch (ExecutionException e) {
+            System.out.println("Error closing journal: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        compactor.shutdown();
+    }
+
+    /**
+     * Replays the journal for the given snapshot file on top of the task list.
+     * A rotated journal left behind by an unfinished compaction is replayed
+     * first, followed by the live journal.
+     * Throws SagiriException if a record is corrupted.
+     */
+    public static void replay(TaskList taskList, Path snapshotFile) throws SagiriException {
+        long applied = Storage.readGeneration(Storage.snapshotToLoad(snapshotFile));
+        replayFile(taskList, rotatedFileFor(snapshotFile), applied);
+        replayFile(taskList, journalFileFor(snapshotFile), applied);
+    }
+
+    /**
+     * Replays a journal file unless the snapshot already includes it.
+     *
+     * @param applied the last generation the snapshot includes
+     */
+    private static void replayFile(TaskList taskList, Path file, long applied) throws SagiriException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            int lineNum = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNum++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                try {
+                    if (lineNum == 1 && generationOf(line) <= applied) {
+                        return;
+                    }
+                    if (isGenerationRecord(line)) {
+                        continue;
+                    }
+                    applyRecord(taskList, line);
+                } catch (SagiriException e) {
+                    throw new SagiriException("Corrupted journal " + file.getFileName() + " at line " + lineNum
+                            + ": " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            throw new SagiriException("Error reading journal: " + e.getMessage());
+        }
+    }
+
+    private static void applyRecord(TaskList taskList, String record) throws SagiriException {
+        if (record.length() < 4 || !record.startsWith(" | ", 1)) {
+            throw new SagiriException("Unrecognised record '" + record + "'");
+        }
+        String body = record.substring(4);
+        switch (record.charAt(0)) {
+        case 'A':
+            taskList.addTask(Storage.parseTask(body));
+            break;
+        case 'I': {
+            int separator = body.indexOf(" | ");
+            if (separator < 0) {
+                throw new SagiriException("Unrecognised record '" + record + "'");
+            }
+            taskList.insertTask(parseIndex(body.substring(0, separator)),
+                    Storage.parseTask(body.substring(separator + 3)));
+            break;
+        }
+        case 'M':
+            if (isSingleIndex(body)) {
+                taskList.markTaskDone(parseIndex(body));
+            } else {
+                taskList.markTasks(parsePositions(body), true);
+            }
+            break;
+        case 'U':
+            if (isSingleIndex(body)) {
+                taskList.markTaskNotDone(parseIndex(body));
+            } else {
+                taskList.markTasks(parsePositions(body), false);
+            }
+            break;
+        case 'D':
+            if (isSingleIndex(body)) {
+                taskList.deleteTask(parseIndex(body));
+            } else {
+                taskList.deleteTasks(parsePositions(body));
+            }
+            break;
+        default:
+            throw new SagiriException("Unrecognised record '" + record + "'");
+        }
+    }
+
+    /**
+     * Counts the bytes a record takes in the UTF-8 journal file, without
+     * encoding it.
+     */
+    private static int utf8Length(String record) {
+        int bytes = 0;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < record.length()
+                    && Character.isLowSurrogate(record.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private static String header(long generation) {
+        return "G | " + generation;
+    }
+
+    private static boolean isGenerationRecord(String record) {
+        return record.startsWith("G | ");
+    }
+
+    /**
+     * Gets the generation of a journal from its first line, which is 1 for
+     * journals written before generations.
+     */
+    private static long generationOf(String firstLine) throws SagiriException {
+        if (!isGenerationRecord(firstLine)) {
+            return 1;
+        }
+        try {
+            long generation = Long.parseLong(firstLine.substring(4).trim());
+            if (generation >= 1) {
+                return generation;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new SagiriException("Invalid generation '" + firstLine.substring(4) + "'");
+    }
+
+    /**
+     * Reads the generation of a journal file.
+     *
+     * @return the generation, or 0 if the file is missing or empty
+     */
+    private static long readGeneration(Path file) throws IOException, SagiriException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            if (line == null || line.trim().isEmpty()) {
+                return 0;
+            }
+            try {
+                return generationOf(line);
+            } catch (SagiriException e) {
+                throw new SagiriException("Corrupted journal " + file.getFileName() + " at line 1: "
+                        + e.getMessage());
+            }
+        }
+    }
+
+    private static boolean isSingleIndex(String body) {
+        return body.indexOf(',') < 0 && body.indexOf('-', 1) < 0;
+    }
+
+    private static int parseIndex(String body) throws SagiriException {
+        try {
+            return Integer.parseInt(body.trim());
+        } catch (NumberFormatException e) {
+            throw new SagiriException("Invalid task index '" + body + "'");
+        }
+    }
+
+    /**
+     * Formats positions as indexes and inclusive ranges, e.g. "0-4999,5002".
+     */
+    private static String formatPositions(BitSet positions) {
+        StringBuilder result = new StringBuilder();
+        for (int from = positions.nextSetBit(0); from >= 0; from = positions.nextSetBit(from)) {
+            int to = positions.nextClearBit(from) - 1;
+            if (result.length() > 0) {
+                result.append(',');
+            }
+            result.append(from);
+            if (to > from) {
+                result.append('-').append(to);
+            }
+            from = to + 1;
+        }
+        return result.toString();
+    }
+
+    /**
+     * Parses positions written by formatPositions.
+     */
+    private static BitSet parsePositions(String body) throws SagiriException {
+        BitSet positions = new BitSet();
+        try {
+            for (String part : body.trim().split(",")) {
+                int dash = part.indexOf('-', 1);
+                int from = Integer.parseInt(dash < 0 ? part : part.substring(0, dash));
+                int to = dash < 0 ? from : Integer.parseInt(part.substring(dash + 1));
+                if (from < 0 || to < from) {
+                    throw new NumberFormatException();
+                }
+                positions.set(from, to + 1);
+            }
+        } catch (NumberFormatException e) {
+            throw new SagiriException("Invalid task index '" + body + "'");
+        }
+        return positions;
+    }
+
+    private void append(String record) {
+        submit(record);
+        compactIfDue();
+    }
+
+    private void submit(String record) {
+        writer.submit(record);
+        journalBytes += utf8Length(record) + 1;
+    }
+
+    private void compactIfDue() {
+        if (journalBytes >= compactionThreshold) {
+            compact();
+        }
+    }
+
+    /**
+     * Rotates the journal and writes a fresh snapshot in the background.
+     * An immutable snapshot of the task list is taken on the calling thread,
+     * which is O(1) with a VersionedTaskStore, and serialized by the
+     * compactor while later commands carry on; the rotation itself is queued
+     * behind the records already submitted, so the snapshot covers exactly
+     * the rotated journal and is stamped with its generation.
+     *
+     * If the process dies after the new snapshot is renamed into place but
+     * before the rotated journal is deleted, replay skips the rotated journal
+     * as the snapshot already includes its generation.
+     */
+    private void compact() {
+        if (isCompacting) {
+            return;
+        }
+        if (Files.exists(rotatedFile)) {
+            // An earlier compaction failed; keep appending so nothing is lost.
+            // The rotated journal is folded in when the journal is next opened.
+            return;
+        }
+
+        List<Task> tasks = taskList.snapshot();
+        long nextId = taskList.getNextId();
+        long rotated = generation;
+        isCompacting = true;
+        journalBytes = 0;
+        generation = rotated + 1;
+        writer.rotate(rotatedFile, header(rotated + 1), () -> {
+            pendingCompaction = compactor.submit(() -> {
+                try {
+                    Storage.writeSnapshot(tasks, nextId, rotated, snapshotFile);
+                    Files.delete(rotatedFile);
+                } catch (IOException e) {
+                    System.out.println("Error compacting journal: " + e.getMessage());
+                } finally {
+                    isCompacting = false;
+                }
+            });
+        }, () -> {
+            generation = rotated;
+            isCompacting = false;
+        });
+    }
+
+    private static Path journalFileFor(Path snapshotFile) {
+        return snapshotFile.resolveSibling(baseName(snapshotFile) + ".journal");
+    }
+
+    private static Path rotatedFileFor(Path snapshotFile) {
+        return snapshotFile.resolveSibling(baseName(snapshotFile) + ".journal.old");
+    }
+
+    private static String baseName(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+}
@@ -0,0 +1,317 @@
+package sagiri.storage;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Background thread that owns the journal file.
+ *
+ * Records are handed over by submit and written by a single thread, which
+ * drains everything submitted since its last pass and writes it as one batch.
+ * A burst of commands therefore costs one write and one flush rather than one
+ * per command. When a batch is flushed depends on the durability policy; with
+ * ALWAYS, submit waits until the batch holding its record has been flushed.
+ * Flushing forces the file to the disk, not just to the OS page cache, so a
+ * flushed record survives a power loss.
+ */
+class JournalWriter {
+    private final Path file;
+    private final Durability defaultDurability;
+    private final long intervalMillis;
+    private final Object lock = new Object();
+    private final Thread thread;
+
+    private BufferedWriter writer;
+    private FileChannel channel;
+    // First line of a new journal file; only used on the writer thread once started
+    private String header;
+
+    // Guarded by lock
+    private Durability durability;
+    private List<Object> pending = new ArrayList<>();
+    private long submitted;
+    private long flushed;
+    private long flushRequested;
+    private boolean isClosing;
+    private boolean isStopped;
+
+    /**
+     * A request to move the journal aside, queued behind the records written
+     * before it.
+     */
+    private static class Rotation {
+        final Path target;
+        final String header;
+        final Runnable onRotated;
+        final Runnable onFailed;
+
+        Rotation(Path target, String header, Runnable onRotated, Runnable onFailed) {
+            this.target = target;
+            this.header = header;
+            this.onRotated = onRotated;
+            this.onFailed = onFailed;
+        }
+    }
+
+    /**
+     * Constructor for JournalWriter. Opens the file for appending and starts
+     * the writer thread.
+     *
+     * @param file the journal file
+     * @param header the first line written to the file if it is empty
+     * @param durability when records are flushed
+     * @param intervalMillis longest time records stay unflushed under INTERVAL
+     */
+    JournalWriter(Path file, String header, Durability durability, long intervalMillis) throws IOException {
+        this.file = file;
+        this.header = header;
+        this.defaultDurability = durability;
+        this.durability = durability;
+        this.intervalMillis = intervalMillis;
+        openWriter();
+        thread = new Thread(this::run, "sagiri-journal-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queues a record to be appended. Returns once the record is queued, or
+     * once it is flushed under the ALWAYS policy.
+     */
+    void submit(String record) {
+        long seq = enqueue(record);
+        if (getDurability() == Durability.ALWAYS) {
+            awaitFlushed(seq);
+        }
+    }
+
+    /**
+     * Queues a rotation: once every record submitted so far is written, the
+     * journal is closed, moved to target and reopened with just the given
+     * header, and onRotated is run on the writer thread. If the move fails,
+     * the journal is kept and onFailed is run instead.
+     */
+    void rotate(Path target, String header, Runnable onRotated, Runnable onFailed) {
+        enqueue(new Rotation(target, header, onRotated, onFailed));
+    }
+
+    /**
+     * Flushes everything submitted so far and waits for it to reach the file.
+     *
+     * @return whether anything submitted was still unflushed
+     */
+    boolean flush() {
+        long seq;
+        boolean hasPending;
+        synchronized (lock) {
+            seq = submitted;
+            hasPending = flushed < seq;
+            flushRequested = Math.max(flushRequested, seq);
+            lock.notifyAll();
+        }
+        awaitFlushed(seq);
+        return hasPending;
+    }
+
+    /**
+     * Overrides the durability policy until reset with null.
+     */
+    void setDurability(Durability durability) {
+        synchronized (lock) {
+            this.durability = durability == null ? defaultDurability : durability;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Writes and flushes everything submitted so far, closes the file and
+     * stops the writer thread.
+     */
+    void close() {
+        synchronized (lock) {
+            isClosing = true;
+            lock.notifyAll();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Durability getDurability() {
+        synchronized (lock) {
+            return durability;
+        }
+    }
+
+    private long enqueue(Object item) {
+        synchronized (lock) {
+            pending.add(item);
+            submitted++;
+            if (durability == Durability.ALWAYS) {
+                flushRequested = submitted;
+            }
+            lock.notifyAll();
+            return submitted;
+        }
+    }
+
+    private void awaitFlushed(long seq) {
+        synchronized (lock) {
+            while (flushed < seq && !isStopped) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void run() {
+        List<Object> batch = new ArrayList<>();
+        long lastFlush = System.currentTimeMillis();
+        boolean isDirty = false;
+        while (true) {
+            long target;
+            boolean isFlushDue;
+            boolean isLast;
+            synchronized (lock) {
+                while (pending.isEmpty() && !isClosing && flushRequested <= flushed) {
+                    long timeout = 0;
+                    if (isDirty && durability == Durability.INTERVAL) {
+                        timeout = lastFlush + intervalMillis - System.currentTimeMillis();
+                        if (timeout <= 0) {
+                            break;
+                        }
+                    }
+                    try {
+                        lock.wait(timeout);
+                    } catch (InterruptedException e) {
+                        isClosing = true;
+                    }
+                }
+                List<Object> drained = pending;
+                pending = batch;
+                batch = drained;
+                target = submitted;
+                isLast = isClosing;
+                isFlushDue = isLast || flushRequested > flushed
+                        || durability == Durability.INTERVAL
+                                && System.currentTimeMillis() - lastFlush >= intervalMillis;
+            }
+
+            isDirty |= writeBatch(batch);
+            batch.clear();
+            if (isFlushDue) {
+                try {
+                    writer.flush();
+                    channel.force(false);
+                } catch (IOException e) {
+                    System.out.println("Error saving tasks: " + e.getMessage());
+                }
+                isDirty = false;
+                lastFlush = System.currentTimeMillis();
+                synchronized (lock) {
+                    flushed = target;
+                    lock.notifyAll();
+                }
+            }
+
+            if (isLast) {
+                try {
+                    writer.flush();
+                    channel.force(false);
+                    writer.close();
+                } catch (IOException e) {
+                    System.out.println("Error closing journal: " + e.getMessage());
+                }
+                synchronized (lock) {
+                    isStopped = true;
+                    lock.notifyAll();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes a drained batch.
+     *
+     * @return true if anything was written that has not been flushed yet
+     */
+    private boolean writeBatch(List<Object> batch) {
+        boolean isDirty = false;
+        for (Object item : batch) {
+            if (item instanceof Rotation) {
+                rotateNow((Rotation) item);
+                isDirty = false;
+                continue;
+            }
+            try {
+                writer.write((String) item);
+                writer.write('\n');
+                isDirty = true;
+            } catch (IOException e) {
+                System.out.println("Error saving tasks: " + e.getMessage());
+            }
+        }
+        return isDirty;
+    }
+
+    private void rotateNow(Rotation rotation) {
+        boolean isRotated = false;
+        try {
+            // The rotated records must be on disk until the snapshot holding them is
+            writer.flush();
+            channel.force(false);
+            writer.close();
+            Files.move(file, rotation.target, StandardCopyOption.ATOMIC_MOVE);
+            isRotated = true;
+            header = rotation.header;
+            openWriter();
+        } catch (IOException e) {
+            System.out.println("Error rotating journal: " + e.getMessage());
+            if (!isRotated) {
+                reopenAfterFailure();
+            }
+        }
+        if (isRotated) {
+            rotation.onRotated.run();
+        } else {
+            rotation.onFailed.run();
+        }
+    }
+
+    private void reopenAfterFailure() {
+        try {
+            openWriter();
+        } catch (IOException e) {
+            System.out.println("Error opening journal: " + e.getMessage());
+        }
+    }
+
+    private void openWriter() throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        boolean isEmpty = !Files.exists(file) || Files.size(file) == 0;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        writer = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8));
+        if (isEmpty) {
+            writer.write(header);
+            writer.write('\n');
+        }
+    }
+}
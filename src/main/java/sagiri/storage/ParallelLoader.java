@@ -0,0 +1,201 @@
+package sagiri.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import sagiri.exception.SagiriException;
+
+import sagiri.task.Task;
+import sagiri.task.TaskList;
+
+/**
+ * Loads a text data file by splitting it at newline boundaries into chunks
+ * that are decoded and validated in parallel on a ForkJoin pool.
+ *
+ * The chunks are stitched back together in file order, so the resulting task
+ * list and any "Corrupted data file at line N" error are identical to those
+ * of the sequential Storage.loadTasks.
+ */
+public class ParallelLoader {
+    static final int MIN_CHUNK_BYTES = 1024 * 1024;
+
+    /**
+     * Loads tasks from the given text data file into the task list, using the
+     * common ForkJoin pool. Small files are loaded sequentially.
+     */
+    public static void loadTasks(TaskList taskList, Path file) throws SagiriException {
+        loadTasks(taskList, file, ForkJoinPool.commonPool(), MIN_CHUNK_BYTES);
+    }
+
+    /**
+     * Loads tasks from the given text data file into the task list.
+     *
+     * @param pool the pool to decode chunks on
+     * @param minChunkBytes files smaller than this are not split
+     */
+    static void loadTasks(TaskList taskList, Path file, ForkJoinPool pool, int minChunkBytes)
+            throws SagiriException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 2L * minChunkBytes || size > Integer.MAX_VALUE || pool.getParallelism() < 2) {
+                Storage.loadTasks(taskList, file);
+                return;
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            List<Chunk> chunks = split(buffer, (int) size, pool.getParallelism() * 4, minChunkBytes);
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    ForkJoinTask.invokeAll(chunks);
+                }
+            });
+            stitch(taskList, chunks);
+        } catch (IOException e) {
+            throw new SagiriException("Error reading data file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Splits the buffer into roughly equal chunks, each ending just after a
+     * newline (or at the end of the file).
+     */
+    private static List<Chunk> split(ByteBuffer buffer, int size, int targetChunks, int minChunkBytes) {
+        int chunkBytes = Math.max(minChunkBytes, size / targetChunks);
+        List<Chunk> chunks = new ArrayList<>();
+        int start = 0;
+        while (start < size) {
+            int end = Math.min(size, start + chunkBytes);
+            while (end < size && buffer.get(end - 1) != '\n') {
+                end++;
+            }
+            chunks.add(new Chunk(buffer, start, end));
+            start = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * Adds the decoded tasks to the task list in file order, stopping at the
+     * first corrupted record just like the sequential loader.
+     */
+    private static void stitch(TaskList taskList, List<Chunk> chunks) throws SagiriException {
+        int linesBefore = 0;
+        long nextId = Task.NO_ID;
+        for (Chunk chunk : chunks) {
+            nextId = Math.max(nextId, chunk.nextId);
+            for (int i = 0; i < chunk.tasks.size(); i++) {
+                try {
+                    taskList.addTask(chunk.tasks.get(i));
+                } catch (SagiriException e) {
+                    throw new SagiriException("Corrupted data file at line " + (linesBefore + chunk.taskLines[i])
+                            + ": " + e.getMessage());
+                }
+            }
+            if (chunk.ioError != null) {
+                throw new SagiriException("Error reading data file: " + chunk.ioError);
+            }
+            if (chunk.error != null) {
+                throw new SagiriException("Corrupted data file at line " + (linesBefore + chunk.errorLine) + ": "
+                        + chunk.error);
+            }
+            linesBefore += chunk.lineCount;
+        }
+        taskList.reserveIds(nextId);
+    }
+
+    /**
+     * A range of the file decoded into tasks by one ForkJoin task. It is
+     * Serializable only through RecursiveAction and is never serialized.
+     */
+    @SuppressWarnings("serial")
+    private static class Chunk extends RecursiveAction {
+        private final ByteBuffer buffer;
+        private final int start;
+        private final int end;
+
+        private final List<Task> tasks = new ArrayList<>();
+        // Line of each task within the chunk, for errors found while stitching
+        private int[] taskLines = new int[64];
+        private long nextId = Task.NO_ID;
+        private int lineCount;
+        private int errorLine;
+        private String error;
+        private String ioError;
+
+        Chunk(ByteBuffer buffer, int start, int end) {
+            this.buffer = buffer;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            CharBuffer text;
+            try {
+                text = StandardCharsets.UTF_8.newDecoder()
+                        .onMalformedInput(CodingErrorAction.REPORT)
+                        .onUnmappableCharacter(CodingErrorAction.REPORT)
+                        .decode(buffer.slice(start, end - start));
+            } catch (CharacterCodingException e) {
+                ioError = e.getMessage();
+                return;
+            }
+
+            // Same line terminators as BufferedReader.readLine: \n, \r or \r\n
+            char[] chars = text.array();
+            int limit = text.arrayOffset() + text.limit();
+            int lineStart = text.arrayOffset();
+            int i = lineStart;
+            while (lineStart < limit) {
+                while (i < limit && chars[i] != '\n' && chars[i] != '\r') {
+                    i++;
+                }
+                lineCount++;
+                String line = new String(chars, lineStart, i - lineStart);
+                if (i < limit && chars[i] == '\r' && i + 1 < limit && chars[i + 1] == '\n') {
+                    i++;
+                }
+                i++;
+                lineStart = i;
+
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    if (Storage.isHeader(line)) {
+                        nextId = Math.max(nextId, Storage.parseHeader(line));
+                    } else {
+                        if (tasks.size() == taskLines.length) {
+                            taskLines = Arrays.copyOf(taskLines, taskLines.length * 2);
+                        }
+                        taskLines[tasks.size()] = lineCount;
+                        tasks.add(Storage.parseTask(line));
+                    }
+                } catch (SagiriException e) {
+                    errorLine = lineCount;
+                    error = e.getMessage();
+                    return;
+                }
+            }
+        }
+    }
+}
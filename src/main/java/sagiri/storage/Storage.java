@@ -1,14 +1,23 @@
 package sagiri.storage;
 
-import java.io.File;
-import java.io.FileWriter;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
 import java.util.List;
 
 import sagiri.exception.SagiriException;
+import sagiri.stats.LoadEvent;
+import sagiri.stats.SaveEvent;
 
+import sagiri.task.DateCodec;
 import sagiri.task.Task;
 import sagiri.task.TaskList;
 import sagiri.task.TaskType;
@@ -17,140 +26,441 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 public class Storage {
+    private static final String SEPARATOR = " | ";
+    private static final DateTimeFormatter STORAGE_DATE_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yy");
+    // Header lines at the top of a text data file: the next ID to hand out, so
+    // that IDs of deleted tasks are not reused after a restart, and the last
+    // journal generation the snapshot includes (see Journal)
+    private static final String HEADER_PREFIX = "# ";
+    private static final String NEXT_ID_HEADER = "# next-id ";
+    private static final String GENERATION_HEADER = "# generation ";
+
+    public static final Path TEXT_DATA_FILE = Paths.get("./data/Sagiri.dat");
+    public static final Path BINARY_DATA_FILE = Paths.get("./data/Sagiri.bin");
+
+    /**
+     * The active data file. Run with -Dsagiri.storage.format=binary to use the
+     * binary format in ./data/Sagiri.bin instead of ./data/Sagiri.dat.
+     */
+    public static final Path DATA_FILE = "binary".equals(System.getProperty("sagiri.storage.format"))
+            ? BINARY_DATA_FILE
+            : TEXT_DATA_FILE;
+
+    /**
+     * Run with -Dsagiri.load.parallel=true to decode large text data files on
+     * all cores through ParallelLoader.
+     */
+    private static final boolean PARALLEL_LOAD = Boolean.getBoolean("sagiri.load.parallel");
 
     /**
      * Loads tasks from disk into the task list. Reads from ./data/Sagiri.dat in
-     * format: type | marked | name | start | end
+     * format: type | marked | name | start | end | id
+     * and then replays any journal records written since the last snapshot.
+     * When the binary format is active but no binary file exists yet, the text
+     * file is loaded instead and the next snapshot is written as binary.
      * Throws SagiriException if the file format is corrupted.
      */
     public static void loadTasks(TaskList taskList) throws SagiriException {
-        try {
-            File file = new File("./data/Sagiri.dat");
-            if (!file.exists()) {
-                return; // No file to load, start with empty list
-            }
+        Path file = snapshotToLoad(DATA_FILE);
+        boolean isParallel = PARALLEL_LOAD && !BinaryStorage.isBinaryFile(file);
+        LoadEvent event = new LoadEvent();
+        event.begin();
+        int before = taskList.size();
+        if (isParallel) {
+            ParallelLoader.loadTasks(taskList, file);
+        } else {
+            loadTasks(taskList, file);
+        }
+        if (event.shouldCommit()) {
+            event.file = file.toString();
+            event.bytes = sizeOf(file);
+            event.records = taskList.size() - before;
+            event.isParallel = isParallel;
+            event.commit();
+        }
+        Journal.replay(taskList, DATA_FILE);
+    }
 
-            List<String> lines = Files.readAllLines(Paths.get("./data/Sagiri.dat"));
-            for (int lineNum = 1; lineNum <= lines.size(); lineNum++) {
-                String line = lines.get(lineNum - 1);
-                if (line.trim().isEmpty()) {
+    /**
+     * Loads tasks from the given snapshot file into the task list, in the text
+     * or binary format depending on its extension.
+     * Journal records are not replayed.
+     *
+     * Text files are streamed one record at a time and each task is handed
+     * straight to the task list, so memory use while loading does not depend
+     * on the size of the file.
+     */
+    public static void loadTasks(TaskList taskList, Path file) throws SagiriException {
+        if (BinaryStorage.isBinaryFile(file)) {
+            BinaryStorage.loadTasks(taskList, file);
+            return;
+        }
+        if (!Files.exists(file)) {
+            return; // No file to load, start with empty list
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            int lineNum = 0;
+            long nextId = Task.NO_ID;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNum++;
+                if (line.isBlank()) {
                     continue;
                 }
-                    
 
-                String[] parts = line.split(" \\| ");
-                if (parts.length != 5) {
-                    throw new SagiriException("Corrupted data file at line " + lineNum
-                            + ": Expected 5 parts separated by ' | ', found " + parts.length);
+                try {
+                    if (isHeader(line)) {
+                        nextId = Math.max(nextId, parseHeader(line));
+                    } else {
+                        taskList.addTask(parseTask(line));
+                    }
+                } catch (SagiriException e) {
+                    throw new SagiriException("Corrupted data file at line " + lineNum + ": " + e.getMessage());
                 }
+            }
+            taskList.reserveIds(nextId);
+        } catch (IOException e) {
+            throw new SagiriException("Error reading data file: " + e.getMessage());
+        }
+    }
 
-                String type = parts[0].trim();
-                String marked = parts[1].trim();
-                String name = parts[2].trim();
-                String start = parts[3].trim();
-                String end = parts[4].trim();
+    /**
+     * Gets the file the tasks of a data file are loaded from: the file itself
+     * or, while a binary data file has not been written yet, the text data
+     * file next to it.
+     */
+    static Path snapshotToLoad(Path file) {
+        if (BinaryStorage.isBinaryFile(file) && !Files.exists(file)) {
+            String name = file.getFileName().toString();
+            return file.resolveSibling(name.substring(0, name.length() - ".bin".length()) + ".dat");
+        }
+        return file;
+    }
 
-                // Handle null placeholders
-                if (start.equals("null")) {
-                    start = "";
+    /**
+     * Reads the last journal generation a snapshot includes, from the header
+     * of a text or binary data file.
+     *
+     * @return the generation, or 0 if the file is missing or has none
+     */
+    static long readGeneration(Path file) throws SagiriException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        if (BinaryStorage.isBinaryFile(file)) {
+            return BinaryStorage.readGeneration(file);
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null && isHeader(line)) {
+                if (line.startsWith(GENERATION_HEADER)) {
+                    return parseHeaderValue(line, GENERATION_HEADER, "generation");
                 }
+            }
+            return 0;
+        } catch (IOException e) {
+            throw new SagiriException("Error reading data file: " + e.getMessage());
+        }
+    }
 
-                if (end.equals("null")) {
-                    end = "";
-                }
+    /**
+     * Checks if a line of a text data file is a header rather than a task.
+     */
+    static boolean isHeader(String line) {
+        return line.startsWith(HEADER_PREFIX);
+    }
 
-                // Validate type
-                if (!type.equals("T") && !type.equals("E") && !type.equals("D")) {
-                    throw new SagiriException("Corrupted data file at line " + lineNum + ": Invalid task type '" + type
-                            + "'. Expected T, E, or D");
-                }
+    /**
+     * Parses a header line of a text data file.
+     * Throws SagiriException if the header is unknown or its value is not a
+     * positive number.
+     *
+     * @return the next ID for the next ID header, or Task.NO_ID for others
+     */
+    static long parseHeader(String line) throws SagiriException {
+        if (line.startsWith(NEXT_ID_HEADER)) {
+            return parseHeaderValue(line, NEXT_ID_HEADER, "next ID");
+        }
+        if (line.startsWith(GENERATION_HEADER)) {
+            parseHeaderValue(line, GENERATION_HEADER, "generation");
+            return Task.NO_ID;
+        }
+        throw new SagiriException("Unknown header '" + line + "'");
+    }
 
-                // Validate marked status
-                if (!marked.equals("0") && !marked.equals("1")) {
-                    throw new SagiriException("Corrupted data file at line " + lineNum + ": Invalid marked status '"
-                            + marked + "'. Expected 0 or 1");
-                }
+    private static long parseHeaderValue(String line, String header, String description) throws SagiriException {
+        String text = line.substring(header.length()).trim();
+        try {
+            long value = Long.parseLong(text);
+            if (value >= 1) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new SagiriException("Invalid " + description + " '" + text + "'");
+    }
 
-                // Validate name
-                if (name.isEmpty()) {
-                    throw new SagiriException("Corrupted data file at line " + lineNum + ": Task name cannot be empty");
-                }
+    /**
+     * Parses a single record in format: type | marked | name | start | end | id
+     * The id is missing from records written before tasks had IDs; such tasks
+     * are given the next free ID when added to a TaskList.
+     * Throws SagiriException describing the problem if the record is corrupted.
+     *
+     * @param line the record to parse
+     * @return the decoded task
+     */
+    static Task parseTask(String line) throws SagiriException {
+        // Locate the separators by hand instead of using a regex split
+        int first = line.indexOf(SEPARATOR);
+        int second = first < 0 ? -1 : line.indexOf(SEPARATOR, first + SEPARATOR.length());
+        int third = second < 0 ? -1 : line.indexOf(SEPARATOR, second + SEPARATOR.length());
+        int fourth = third < 0 ? -1 : line.indexOf(SEPARATOR, third + SEPARATOR.length());
+        int fifth = fourth < 0 ? -1 : line.indexOf(SEPARATOR, fourth + SEPARATOR.length());
+        int last = fifth < 0 ? fourth : fifth;
 
-                Task task = null;
-                if (type.equals("T")) {
-                    // Todo tasks should have empty start and end
-                    if (!start.isEmpty() || !end.isEmpty()) {
-                        throw new SagiriException("Corrupted data file at line " + lineNum
-                                + ": Todo task should have empty start and end fields, found start='" + start
-                                + "', end='" + end + "'");
-                    }
-                    task = new Task(name);
-                } else if (type.equals("E")) {
-                    // Event tasks should have both start and end
-                    if (start.isEmpty() || end.isEmpty()) {
-                        throw new SagiriException("Corrupted data file at line " + lineNum
-                                + ": Event task must have both start and end times, found start='" + start + "', end='"
-                                + end + "'");
-                    }
-                    task = new Task(name, start, end);
-                } else if (type.equals("D")) {
-                    // Deadline tasks should have empty start and non-empty end
-                    if (!start.isEmpty() || end.isEmpty()) {
-                        throw new SagiriException("Corrupted data file at line " + lineNum
-                                + ": Deadline task should have empty start and non-empty end, found start='" + start
-                                + "', end='" + end + "'");
-                    }
-                    task = new Task(name, end);
-                }
+        String[] parts;
+        if (fourth >= 0 && last + SEPARATOR.length() < line.length()
+                && line.indexOf(SEPARATOR, last + SEPARATOR.length()) < 0) {
+            parts = new String[fifth < 0 ? 5 : 6];
+            parts[0] = line.substring(0, first);
+            parts[1] = line.substring(first + SEPARATOR.length(), second);
+            parts[2] = line.substring(second + SEPARATOR.length(), third);
+            parts[3] = line.substring(third + SEPARATOR.length(), fourth);
+            parts[4] = line.substring(fourth + SEPARATOR.length(), fifth < 0 ? line.length() : fifth);
+            if (fifth >= 0) {
+                parts[5] = line.substring(fifth + SEPARATOR.length());
+            }
+        } else {
+            // Irregular record; fall back to the regex split for identical results
+            parts = line.split(" \\| ");
+            if (parts.length != 5 && parts.length != 6) {
+                throw new SagiriException("Expected 5 parts separated by ' | ', found " + parts.length);
+            }
+        }
 
-                if (task != null) {
-                    if (marked.equals("1")) {
-                        task.markAsDone();
-                    }
-                    taskList.getTasks().add(task); // Directly add to the list
-                }
+        String type = parts[0].trim();
+        String marked = parts[1].trim();
+        String name = parts[2].trim();
+        String start = parts[3].trim();
+        String end = parts[4].trim();
+
+        // Handle null placeholders
+        if (start.equals("null")) {
+            start = "";
+        }
+
+        if (end.equals("null")) {
+            end = "";
+        }
+
+        // Validate type
+        if (!type.equals("T") && !type.equals("E") && !type.equals("D")) {
+            throw new SagiriException("Invalid task type '" + type + "'. Expected T, E, or D");
+        }
+
+        // Validate marked status
+        if (!marked.equals("0") && !marked.equals("1")) {
+            throw new SagiriException("Invalid marked status '" + marked + "'. Expected 0 or 1");
+        }
+
+        // Validate name
+        if (name.isEmpty()) {
+            throw new SagiriException("Task name cannot be empty");
+        }
+
+        long id = Task.NO_ID;
+        if (parts.length == 6) {
+            String idText = parts[5].trim();
+            try {
+                id = Long.parseLong(idText);
+            } catch (NumberFormatException e) {
+                id = Task.NO_ID;
+            }
+            if (id < 1) {
+                throw new SagiriException("Invalid task ID '" + idText + "'. Expected a positive number");
             }
-        } catch (IOException e) {
-            throw new SagiriException("Error reading data file: " + e.getMessage());
         }
+
+        Task task;
+        if (type.equals("T")) {
+            // Todo tasks should have empty start and end
+            if (!start.isEmpty() || !end.isEmpty()) {
+                throw new SagiriException("Todo task should have empty start and end fields, found start='" + start
+                        + "', end='" + end + "'");
+            }
+            task = Task.of(name, TaskType.TODO, null, null, id);
+        } else if (type.equals("E")) {
+            // Event tasks should have both start and end
+            if (start.isEmpty() || end.isEmpty()) {
+                throw new SagiriException("Event task must have both start and end times, found start='" + start
+                        + "', end='" + end + "'");
+            }
+            task = Task.of(name, TaskType.EVENT, decodeDate(start), decodeDate(end), id);
+        } else {
+            // Deadline tasks should have empty start and non-empty end
+            if (!start.isEmpty() || end.isEmpty()) {
+                throw new SagiriException("Deadline task should have empty start and non-empty end, found start='"
+                        + start + "', end='" + end + "'");
+            }
+            task = Task.of(name, TaskType.DEADLINE, null, decodeDate(end), id);
+        }
+
+        if (marked.equals("1")) {
+            task.markAsDone();
+        }
+        return task;
     }
 
     /**
-     * Saves tasks to disk. Saves to ./data/Sagiri.dat in format: type | marked |
-     * name | start | end
-     * If no start and end date, saves as "null".
+     * Formats a task as a single record in format: type | marked | name | start | end | id
+     * If no start and end date, saves as "null". Tasks that have not been
+     * added to a TaskList have no ID, and the id field is left out.
+     *
+     * @param task the task to format
+     * @param isDone the done status to record for the task
+     * @return the record, without a trailing newline
      */
-    public static void saveTasks(TaskList taskList) {
-        try {
-            // Create data directory if it doesn't exist
-            Files.createDirectories(Paths.get("./data"));
-
-            FileWriter fw = new FileWriter("./data/Sagiri.dat");
-            for (Task task : taskList.getTasks()) {
-                String type = task.getTypeIcon();
-                String marked = task.isDone() ? "1" : "0";
-                String name = task.getName();
-
-                String start = "null";
-                String end = "null";
-                if (task.getType() == TaskType.EVENT) {
-                    start = formatDateForStorage(task.getStartDateTime());
-                    end = formatDateForStorage(task.getEndDateTime());
-                } else if (task.getType() == TaskType.DEADLINE) {
-                    end = formatDateForStorage(task.getEndDateTime());
-                }
+    static String formatTask(Task task, boolean isDone) {
+        String type = task.getTypeIcon();
+        String marked = isDone ? "1" : "0";
+        String name = task.getName();
+
+        String start = "null";
+        String end = "null";
+        if (task.getType() == TaskType.EVENT) {
+            start = formatDateForStorage(task.getStartDateTime());
+            end = formatDateForStorage(task.getEndDateTime());
+        } else if (task.getType() == TaskType.DEADLINE) {
+            end = formatDateForStorage(task.getEndDateTime());
+        }
+
+        String record = type + " | " + marked + " | " + name + " | " + start + " | " + end;
+        return task.getId() == Task.NO_ID ? record : record + " | " + task.getId();
+    }
+
+    /**
+     * Writes a full snapshot of the given tasks, e.g. from TaskList.snapshot,
+     * with the done status each task has.
+     *
+     * @param tasks the tasks to write, in list order
+     * @param target the data file to replace
+     */
+    static void writeSnapshot(List<Task> tasks, Path target) throws IOException {
+        writeSnapshot(tasks, Task.NO_ID, 0, target);
+    }
+
+    /**
+     * Writes a full snapshot of the given tasks with the next ID of the task
+     * list they came from, from TaskList.getNextId, and the last journal
+     * generation they include.
+     *
+     * @param tasks the tasks to write, in list order
+     * @param nextId the next ID to hand out, or Task.NO_ID to leave it to the
+     *        IDs of the tasks
+     * @param generation the journal generation, or 0 if there is none
+     * @param target the data file to replace
+     */
+    static void writeSnapshot(List<Task> tasks, long nextId, long generation, Path target) throws IOException {
+        BitSet done = new BitSet(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            done.set(i, tasks.get(i).isDone());
+        }
+        writeSnapshot(tasks, done, nextId, generation, target);
+    }
+
+    /**
+     * Writes a full snapshot of the given tasks to a temporary file next to the
+     * target and atomically renames it over the target, so that a reader never
+     * sees a half-written data file. The file is forced to disk before the
+     * rename and the rename after it, so a power loss leaves either the old
+     * or the new snapshot in place. Targets ending in .bin are written in the
+     * binary format.
+     *
+     * @param tasks the tasks to write, in list order
+     * @param done the done status of each task, by position
+     * @param nextId the next ID to hand out, or Task.NO_ID
+     * @param generation the last journal generation included, or 0
+     * @param target the data file to replace
+     */
+    static void writeSnapshot(List<Task> tasks, BitSet done, long nextId, long generation, Path target)
+            throws IOException {
+        SaveEvent event = new SaveEvent();
+        event.begin();
+        Path dir = target.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
 
-                fw.write(type + " | " + marked + " | " + name + " | " + start + " | " + end + "\n");
+        Path temp = dir.resolve(target.getFileName() + ".tmp");
+        if (BinaryStorage.isBinaryFile(target)) {
+            BinaryStorage.write(tasks, done, nextId, generation, temp);
+        } else {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp)) {
+                if (nextId != Task.NO_ID) {
+                    writer.write(NEXT_ID_HEADER + nextId);
+                    writer.write('\n');
+                }
+                if (generation > 0) {
+                    writer.write(GENERATION_HEADER + generation);
+                    writer.write('\n');
+                }
+                for (int i = 0; i < tasks.size(); i++) {
+                    writer.write(formatTask(tasks.get(i), done.get(i)));
+                    writer.write('\n');
+                }
             }
-            fw.close();
+        }
+        force(temp);
+        long bytes = event.shouldCommit() ? Files.size(temp) : 0;
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory(dir);
+        if (event.shouldCommit()) {
+            event.file = target.toString();
+            event.bytes = bytes;
+            event.records = tasks.size();
+            event.commit();
+        }
+    }
+
+    private static void force(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Forces a rename in a directory to disk, where the platform allows it.
+     */
+    private static void forceDirectory(Path dir) {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
         } catch (IOException e) {
-            System.out.println("Error saving tasks: " + e.getMessage());
+            // Directories cannot be opened on every platform, e.g. Windows
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.exists(file) ? Files.size(file) : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Decodes a stored "dd-mm-yy" date, rejecting anything else as corruption.
+     */
+    private static LocalDateTime decodeDate(String text) throws SagiriException {
+        int epochDay = DateCodec.decode(text);
+        if (epochDay == DateCodec.INVALID) {
+            throw new SagiriException("Invalid date '" + text + "'. Expected dd-mm-yy");
         }
+        return DateCodec.toDateTime(epochDay);
     }
 
     /**
      * Formats a LocalDateTime to "dd-mm-yy" format for storage.
-     * 
+     *
      * @param dateTime the LocalDateTime to format
      * @return formatted date string or "null" if dateTime is null
      */
@@ -158,6 +468,6 @@ public class Storage {
         if (dateTime == null) {
             return "null";
         }
-        return dateTime.format(DateTimeFormatter.ofPattern("dd-MM-yy"));
+        return dateTime.format(STORAGE_DATE_FORMAT);
     }
 }
@@ -0,0 +1,65 @@
+package sagiri.task;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+
+/**
+ * Task store backed by an ArrayList of Task objects. Snapshots copy the
+ * list, so writers must be kept out while one is taken.
+ */
+public class ArrayTaskStore implements TaskStore {
+    private final ArrayList<Task> tasks = new ArrayList<>();
+
+    @Override
+    public int size() {
+        return tasks.size();
+    }
+
+    @Override
+    public Task get(int index) {
+        return tasks.get(index);
+    }
+
+    @Override
+    public long seqAt(int index) {
+        return tasks.get(index).getId();
+    }
+
+    @Override
+    public void add(Task task) {
+        tasks.add(task);
+    }
+
+    @Override
+    public Task remove(int index) {
+        return tasks.remove(index);
+    }
+
+    @Override
+    public void setDone(int index, boolean isDone) {
+        tasks.set(index, tasks.get(index).withDone(isDone));
+    }
+
+    @Override
+    public void removeAll(BitSet positions) {
+        int kept = 0;
+        for (int i = 0; i < tasks.size(); i++) {
+            if (!positions.get(i)) {
+                tasks.set(kept++, tasks.get(i));
+            }
+        }
+        tasks.subList(kept, tasks.size()).clear();
+    }
+
+    @Override
+    public void insertAll(BitSet positions, Task[] inserted) {
+        int from = tasks.size() - 1;
+        tasks.addAll(Collections.nCopies(inserted.length, null));
+        // Fill from the back, so each task moves at most once
+        int next = inserted.length - 1;
+        for (int i = tasks.size() - 1; next >= 0; i--) {
+            tasks.set(i, positions.get(i) ? inserted[next--] : tasks.get(from--));
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package sagiri.task;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A change that TaskList can undo: tasks inserted at some positions, deleted
+ * from them, or marked there as done or not done.
+ *
+ * Positions are kept as ranges, so a change to a long run of tasks takes a
+ * few bytes however many tasks it covers. Only inserts and deletes hold on to
+ * the tasks themselves.
+ */
+public final class Change {
+    /**
+     * What a change does to the tasks at its positions.
+     */
+    public enum Kind {
+        INSERT, DELETE, MARK, UNMARK
+    }
+
+    // Rough size of a Task with its String and dates, for the undo budget
+    private static final long BYTES_PER_TASK = 96;
+
+    private final Kind kind;
+    // Inclusive from, to pairs of 0-based positions, in ascending order
+    private final int[] ranges;
+    // Tasks at the positions in order, for inserts and deletes
+    private final Task[] tasks;
+
+    private Change(Kind kind, int[] ranges, Task[] tasks) {
+        this.kind = kind;
+        this.ranges = ranges;
+        this.tasks = tasks;
+    }
+
+    /**
+     * Creates a change that puts tasks at the given positions, which are
+     * their positions once inserted.
+     */
+    static Change inserted(BitSet positions, Task[] tasks) {
+        return new Change(Kind.INSERT, toRanges(positions), tasks);
+    }
+
+    /**
+     * Creates a change that deletes the tasks at the given positions.
+     *
+     * @param tasks the tasks at those positions, kept so the delete can be undone
+     */
+    static Change deleted(BitSet positions, Task[] tasks) {
+        return new Change(Kind.DELETE, toRanges(positions), tasks);
+    }
+
+    /**
+     * Creates a change that marks the tasks at the given positions as done or
+     * not done.
+     */
+    static Change marked(BitSet positions, boolean isDone) {
+        return new Change(isDone ? Kind.MARK : Kind.UNMARK, toRanges(positions), null);
+    }
+
+    /**
+     * Gets the change that reverses this one.
+     */
+    Change inverse() {
+        switch (kind) {
+        case INSERT:
+            return new Change(Kind.DELETE, ranges, tasks);
+        case DELETE:
+            return new Change(Kind.INSERT, ranges, tasks);
+        case MARK:
+            return new Change(Kind.UNMARK, ranges, null);
+        default:
+            return new Change(Kind.MARK, ranges, null);
+        }
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Gets the 0-based positions the change applies to.
+     */
+    public BitSet getPositions() {
+        BitSet positions = new BitSet(ranges.length == 0 ? 0 : ranges[ranges.length - 1] + 1);
+        for (int i = 0; i < ranges.length; i += 2) {
+            positions.set(ranges[i], ranges[i + 1] + 1);
+        }
+        return positions;
+    }
+
+    /**
+     * Gets the tasks an insert or delete applies to, in order of position.
+     *
+     * @return the tasks, or an empty list for a mark or unmark
+     */
+    public List<Task> getTasks() {
+        return tasks == null ? Collections.emptyList() : Collections.unmodifiableList(Arrays.asList(tasks));
+    }
+
+    /**
+     * Gets the number of tasks the change applies to.
+     */
+    public int size() {
+        int count = 0;
+        for (int i = 0; i < ranges.length; i += 2) {
+            count += ranges[i + 1] - ranges[i] + 1;
+        }
+        return count;
+    }
+
+    /**
+     * Gets the position of a change to a single task.
+     *
+     * @return the position, or -1 if the change applies to several tasks
+     */
+    int singlePosition() {
+        return ranges.length == 2 && ranges[0] == ranges[1] ? ranges[0] : -1;
+    }
+
+    /**
+     * Estimates the memory the change keeps alive.
+     */
+    long estimateBytes() {
+        long bytes = 64 + 4L * ranges.length;
+        if (tasks != null) {
+            for (Task task : tasks) {
+                bytes += BYTES_PER_TASK + 2L * task.getName().length();
+            }
+        }
+        return bytes;
+    }
+
+    private static int[] toRanges(BitSet positions) {
+        int[] ranges = new int[8];
+        int count = 0;
+        for (int from = positions.nextSetBit(0); from >= 0; from = positions.nextSetBit(from)) {
+            int to = positions.nextClearBit(from) - 1;
+            if (count == ranges.length) {
+                ranges = Arrays.copyOf(ranges, count * 2);
+            }
+            ranges[count++] = from;
+            ranges[count++] = to;
+            from = to + 1;
+        }
+        return Arrays.copyOf(ranges, count);
+    }
+}
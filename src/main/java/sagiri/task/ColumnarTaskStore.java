@@ -0,0 +1,215 @@
+package sagiri.task;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Task store that keeps each field in a primitive column instead of one
+ * object graph per task: a byte of type and done flags, epoch-day ints for
+ * the dates, and all names packed back to back as UTF-8 in one byte array.
+ *
+ * This takes roughly 25 bytes per task plus the name, against well over
+ * 100 bytes for a Task with its String and LocalDateTime objects. Tasks
+ * returned by get are lightweight views built on demand.
+ */
+public class ColumnarTaskStore implements TaskStore {
+    private static final TaskType[] TYPES = {TaskType.TODO, TaskType.EVENT, TaskType.DEADLINE};
+    private static final int TYPE_MASK = 0x03;
+    private static final int DONE_FLAG = 0x04;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    private byte[] flags = new byte[16];
+    private int[] startDays = new int[16];
+    private int[] endDays = new int[16];
+    private long[] seqs = new long[16];
+    private int[] nameOffsets = new int[16];
+    private int[] nameLengths = new int[16];
+    private int size;
+
+    private byte[] names = new byte[256];
+    private int namesUsed;
+    private int namesGarbage;
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Task get(int index) {
+        checkIndex(index);
+        String name = new String(names, nameOffsets[index], nameLengths[index], StandardCharsets.UTF_8);
+        Task task = Task.of(name, TYPES[flags[index] & TYPE_MASK], toDateTime(startDays[index]),
+                toDateTime(endDays[index]));
+        if ((flags[index] & DONE_FLAG) != 0) {
+            task.markAsDone();
+        }
+        task.setSeq(seqs[index]);
+        return task;
+    }
+
+    @Override
+    public long seqAt(int index) {
+        checkIndex(index);
+        return seqs[index];
+    }
+
+    @Override
+    public void add(Task task) {
+        if (size == flags.length) {
+            grow();
+        }
+        byte[] name = task.getName().getBytes(StandardCharsets.UTF_8);
+        if (namesUsed + name.length > names.length) {
+            compactNames(name.length);
+        }
+        write(size, task, name);
+        size++;
+    }
+
+    @Override
+    public void insertAll(BitSet positions, Task[] inserted) {
+        byte[][] encoded = new byte[inserted.length][];
+        int needed = 0;
+        for (int i = 0; i < inserted.length; i++) {
+            encoded[i] = inserted[i].getName().getBytes(StandardCharsets.UTF_8);
+            needed += encoded[i].length;
+        }
+        // Make room for all the names first, as compacting only keeps names of stored tasks
+        if (namesUsed + needed > names.length) {
+            compactNames(needed);
+        }
+        while (size + inserted.length > flags.length) {
+            grow();
+        }
+        // Fill from the back, so each task moves at most once
+        int from = size - 1;
+        int next = inserted.length - 1;
+        for (int i = size + inserted.length - 1; next >= 0; i--) {
+            if (positions.get(i)) {
+                write(i, inserted[next], encoded[next]);
+                next--;
+            } else {
+                flags[i] = flags[from];
+                startDays[i] = startDays[from];
+                endDays[i] = endDays[from];
+                seqs[i] = seqs[from];
+                nameOffsets[i] = nameOffsets[from];
+                nameLengths[i] = nameLengths[from];
+                from--;
+            }
+        }
+        size += inserted.length;
+    }
+
+    /**
+     * Writes a task into the columns at a position, appending its name to the
+     * name store, which must have room for it.
+     */
+    private void write(int index, Task task, byte[] name) {
+        System.arraycopy(name, 0, names, namesUsed, name.length);
+        flags[index] = (byte) (task.getType().ordinal() | (task.isDone() ? DONE_FLAG : 0));
+        startDays[index] = toEpochDay(task.getStartDateTime());
+        endDays[index] = toEpochDay(task.getEndDateTime());
+        seqs[index] = task.getId();
+        nameOffsets[index] = namesUsed;
+        nameLengths[index] = name.length;
+        namesUsed += name.length;
+    }
+
+    @Override
+    public Task remove(int index) {
+        Task removed = get(index);
+        namesGarbage += nameLengths[index];
+
+        int moved = size - index - 1;
+        System.arraycopy(flags, index + 1, flags, index, moved);
+        System.arraycopy(startDays, index + 1, startDays, index, moved);
+        System.arraycopy(endDays, index + 1, endDays, index, moved);
+        System.arraycopy(seqs, index + 1, seqs, index, moved);
+        System.arraycopy(nameOffsets, index + 1, nameOffsets, index, moved);
+        System.arraycopy(nameLengths, index + 1, nameLengths, index, moved);
+        size--;
+        return removed;
+    }
+
+    @Override
+    public void removeAll(BitSet positions) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (positions.get(i)) {
+                namesGarbage += nameLengths[i];
+                continue;
+            }
+            flags[kept] = flags[i];
+            startDays[kept] = startDays[i];
+            endDays[kept] = endDays[i];
+            seqs[kept] = seqs[i];
+            nameOffsets[kept] = nameOffsets[i];
+            nameLengths[kept] = nameLengths[i];
+            kept++;
+        }
+        size = kept;
+    }
+
+    @Override
+    public void setDone(int index, boolean isDone) {
+        checkIndex(index);
+        if (isDone) {
+            flags[index] |= DONE_FLAG;
+        } else {
+            flags[index] &= ~DONE_FLAG;
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+    }
+
+    private void grow() {
+        int capacity = flags.length * 2;
+        flags = Arrays.copyOf(flags, capacity);
+        startDays = Arrays.copyOf(startDays, capacity);
+        endDays = Arrays.copyOf(endDays, capacity);
+        seqs = Arrays.copyOf(seqs, capacity);
+        nameOffsets = Arrays.copyOf(nameOffsets, capacity);
+        nameLengths = Arrays.copyOf(nameLengths, capacity);
+    }
+
+    /**
+     * Makes room for another name. Names of removed tasks are left in place
+     * until they make up half of the name store, then the live names are
+     * copied into a fresh array of the same size; otherwise the store grows.
+     * Names are not stored in position order once tasks are inserted in the
+     * middle, so copying in place could overwrite a name not yet moved.
+     */
+    private void compactNames(int needed) {
+        int live = namesUsed - namesGarbage;
+        int capacity = names.length;
+        if (namesGarbage < live || live + needed > capacity) {
+            capacity = Math.max(capacity * 2, live + needed);
+        }
+        byte[] target = new byte[capacity];
+        int used = 0;
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(names, nameOffsets[i], target, used, nameLengths[i]);
+            nameOffsets[i] = used;
+            used += nameLengths[i];
+        }
+        names = target;
+        namesUsed = used;
+        namesGarbage = 0;
+    }
+
+    private static int toEpochDay(LocalDateTime dateTime) {
+        return dateTime == null ? NO_DATE : DateCodec.toEpochDay(dateTime);
+    }
+
+    private static LocalDateTime toDateTime(int epochDay) {
+        return epochDay == NO_DATE ? null : DateCodec.toDateTime(epochDay);
+    }
+}
@@ -0,0 +1,153 @@
+package sagiri.task;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Converts "dd-mm-yy" dates, as typed in commands and written to the data
+ * file, to epoch days and back.
+ *
+ * Decoding reads the six digits in place and works out the epoch day with
+ * integer arithmetic, so it allocates nothing. The LocalDateTime for an epoch
+ * day is kept in a small cache, so tasks loaded or added around the same
+ * dates share their date objects instead of each creating new ones.
+ */
+public class DateCodec {
+    /** Returned by decode for text that is not a valid date. */
+    public static final int INVALID = Integer.MIN_VALUE;
+
+    private static final int DATE_LENGTH = 8;
+    private static final int CACHE_SIZE = 256;
+    // Days from 0000-01-01 to 1970-01-01 in the proleptic Gregorian calendar
+    private static final int DAYS_0000_TO_1970 = 719528;
+
+    // Direct-mapped by epoch day. Entries are immutable, so racing threads at
+    // worst replace each other's entries.
+    private static final Entry[] CACHE = new Entry[CACHE_SIZE];
+
+    /**
+     * Decodes a "dd-mm-yy" date, where yy is a year in 2000 to 2099.
+     *
+     * @param text the date string, may be null
+     * @return the epoch day, or INVALID if text is not a valid date
+     */
+    public static int decode(String text) {
+        return text == null ? INVALID : decode(text, 0, text.length());
+    }
+
+    /**
+     * Decodes a "dd-mm-yy" date from text[start, end) without copying it.
+     *
+     * @return the epoch day, or INVALID if the range is not a valid date
+     */
+    public static int decode(CharSequence text, int start, int end) {
+        if (end - start != DATE_LENGTH || text.charAt(start + 2) != '-' || text.charAt(start + 5) != '-') {
+            return INVALID;
+        }
+        int day = twoDigits(text, start);
+        int month = twoDigits(text, start + 3);
+        int year = twoDigits(text, start + 6);
+        if (day < 1 || month < 1 || month > 12 || year < 0) {
+            return INVALID;
+        }
+        year += 2000;
+        if (day > lengthOfMonth(year, month)) {
+            return INVALID;
+        }
+        return epochDay(year, month, day);
+    }
+
+    /**
+     * Checks if text is a valid "dd-mm-yy" date.
+     */
+    public static boolean isValid(String text) {
+        return decode(text) != INVALID;
+    }
+
+    /**
+     * Parses a "dd-mm-yy" date to the start of that day.
+     *
+     * @return the date, or null if text is not a valid date
+     */
+    public static LocalDateTime parse(String text) {
+        int epochDay = decode(text);
+        return epochDay == INVALID ? null : toDateTime(epochDay);
+    }
+
+    /**
+     * Gets the start of the given epoch day, reusing a recently created
+     * LocalDateTime for it if there is one.
+     */
+    public static LocalDateTime toDateTime(int epochDay) {
+        int slot = epochDay & (CACHE_SIZE - 1);
+        Entry entry = CACHE[slot];
+        if (entry == null || entry.epochDay != epochDay) {
+            entry = new Entry(epochDay, LocalDate.ofEpochDay(epochDay).atStartOfDay());
+            CACHE[slot] = entry;
+        }
+        return entry.dateTime;
+    }
+
+    /**
+     * Gets the epoch day of a date.
+     */
+    public static int toEpochDay(LocalDateTime dateTime) {
+        return (int) dateTime.toLocalDate().toEpochDay();
+    }
+
+    /**
+     * Reads two ASCII digits, returning a negative number if either is not one.
+     */
+    private static int twoDigits(CharSequence text, int index) {
+        int tens = text.charAt(index) - '0';
+        int ones = text.charAt(index + 1) - '0';
+        if (tens < 0 || tens > 9 || ones < 0 || ones > 9) {
+            return -1;
+        }
+        return tens * 10 + ones;
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+        case 2:
+            return isLeapYear(year) ? 29 : 28;
+        case 4:
+        case 6:
+        case 9:
+        case 11:
+            return 30;
+        default:
+            return 31;
+        }
+    }
+
+    /**
+     * Same calculation as LocalDate.toEpochDay, for years from 0 onwards.
+     */
+    private static int epochDay(int year, int month, int day) {
+        int total = 365 * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) {
+                total--;
+            }
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+
+    private static final class Entry {
+        private final int epochDay;
+        private final LocalDateTime dateTime;
+
+        Entry(int epochDay, LocalDateTime dateTime) {
+            this.epochDay = epochDay;
+            this.dateTime = dateTime;
+        }
+    }
+}
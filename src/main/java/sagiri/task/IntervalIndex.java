@@ -0,0 +1,217 @@
+package sagiri.task;
+
+import java.util.Arrays;
+
+/**
+ * Index of day intervals, such as the days from an event's start to its end,
+ * that finds every interval overlapping a range of days.
+ *
+ * Intervals are kept in a treap ordered by start day, and each node records
+ * the latest end day in its subtree. A query skips every subtree that ends
+ * before the range and stops at the first start after it, so besides the
+ * matches it only visits the O(log n) nodes on the paths leading to them.
+ *
+ * Each interval belongs to one task, identified by its sequence number.
+ */
+class IntervalIndex {
+    private Node root;
+
+    /**
+     * Adds the interval of a task.
+     *
+     * @param startDay first epoch-day of the interval
+     * @param endDay last epoch-day of the interval, not before startDay
+     * @param seq sequence number of the task
+     */
+    void add(int startDay, int endDay, long seq) {
+        root = insert(root, new Node(startDay, endDay, seq));
+    }
+
+    /**
+     * Removes the interval of a task, if present.
+     *
+     * @param startDay first epoch-day of the interval, as given to add
+     * @param seq sequence number of the task
+     */
+    void remove(int startDay, long seq) {
+        root = remove(root, startDay, seq);
+    }
+
+    /**
+     * Finds the intervals that share at least one day with a range.
+     *
+     * @param fromDay first epoch-day of the range
+     * @param toDay last epoch-day of the range
+     * @return sequence numbers of the matching tasks, by start day and then
+     *         sequence number
+     */
+    long[] findOverlapping(int fromDay, int toDay) {
+        Matches matches = new Matches();
+        collect(root, fromDay, toDay, matches);
+        return Arrays.copyOf(matches.seqs, matches.count);
+    }
+
+    /**
+     * Visits every interval in order of start day and then sequence number.
+     */
+    void forEach(Visitor visitor) {
+        visit(root, visitor);
+    }
+
+    private static void visit(Node node, Visitor visitor) {
+        for (; node != null; node = node.right) {
+            visit(node.left, visitor);
+            visitor.visit(node.start, node.end, node.seq);
+        }
+    }
+
+    private static void collect(Node node, int fromDay, int toDay, Matches matches) {
+        // Loop down the right spine instead of recursing, so only left
+        // subtrees add to the stack depth
+        while (node != null && node.maxEnd >= fromDay) {
+            collect(node.left, fromDay, toDay, matches);
+            if (node.start > toDay) {
+                return;
+            }
+            if (node.end >= fromDay) {
+                matches.add(node.seq);
+            }
+            node = node.right;
+        }
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added.start, added.seq, node) < 0) {
+            node.left = insert(node.left, added);
+            node.update();
+            return node.left.priority > node.priority ? rotateRight(node) : node;
+        }
+        node.right = insert(node.right, added);
+        node.update();
+        return node.right.priority > node.priority ? rotateLeft(node) : node;
+    }
+
+    private static Node remove(Node node, int start, long seq) {
+        if (node == null) {
+            return null;
+        }
+        int order = compare(start, seq, node);
+        if (order == 0) {
+            return merge(node.left, node.right);
+        }
+        if (order < 0) {
+            node.left = remove(node.left, start, seq);
+        } else {
+            node.right = remove(node.right, start, seq);
+        }
+        node.update();
+        return node;
+    }
+
+    /**
+     * Joins two treaps where every interval in left comes before every
+     * interval in right.
+     */
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node top = node.left;
+        node.left = top.right;
+        top.right = node;
+        node.update();
+        top.update();
+        return top;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node top = node.right;
+        node.right = top.left;
+        top.left = node;
+        node.update();
+        top.update();
+        return top;
+    }
+
+    private static int compare(int start, long seq, Node node) {
+        return start != node.start ? Integer.compare(start, node.start) : Long.compare(seq, node.seq);
+    }
+
+    /**
+     * Derives a treap priority from a sequence number. Sequence numbers are
+     * unique, and mixing their bits spreads them like random priorities
+     * without keeping a random number generator.
+     */
+    private static int priority(long seq) {
+        long hash = seq;
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return (int) (hash ^ (hash >>> 33));
+    }
+
+    /**
+     * Receives the intervals visited by forEach.
+     */
+    interface Visitor {
+        void visit(int startDay, int endDay, long seq);
+    }
+
+    private static final class Node {
+        private final int start;
+        private final int end;
+        private final long seq;
+        private final int priority;
+        // Latest end day in this subtree
+        private int maxEnd;
+        private Node left;
+        private Node right;
+
+        Node(int start, int end, long seq) {
+            this.start = start;
+            this.end = end;
+            this.seq = seq;
+            this.priority = priority(seq);
+            this.maxEnd = end;
+        }
+
+        void update() {
+            int max = end;
+            if (left != null && left.maxEnd > max) {
+                max = left.maxEnd;
+            }
+            if (right != null && right.maxEnd > max) {
+                max = right.maxEnd;
+            }
+            maxEnd = max;
+        }
+    }
+
+    private static final class Matches {
+        private long[] seqs = new long[8];
+        private int count;
+
+        void add(long seq) {
+            if (count == seqs.length) {
+                seqs = Arrays.copyOf(seqs, count * 2);
+            }
+            seqs[count++] = seq;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package sagiri.task;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * Growable list of primitive longs kept in ascending order by its callers,
+ * used for index posting lists of sequence numbers.
+ */
+class LongList {
+    private long[] values = new long[4];
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    long get(int index) {
+        return values[index];
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    long last() {
+        return values[size - 1];
+    }
+
+    /**
+     * Appends a value, which must not be smaller than the last one.
+     */
+    void add(long value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Inserts a value in order, unless it is already present.
+     */
+    void insert(long value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index >= 0) {
+            return;
+        }
+        index = -index - 1;
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        System.arraycopy(values, index, values, index + 1, size - index);
+        values[index] = value;
+        size++;
+    }
+
+    /**
+     * Removes a value if present.
+     */
+    void remove(long value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index >= 0) {
+            System.arraycopy(values, index + 1, values, index, size - index - 1);
+            size--;
+        }
+    }
+
+    /**
+     * Removes every value matching the filter in a single pass.
+     */
+    void removeIf(LongPredicate filter) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (!filter.test(values[i])) {
+                values[kept++] = values[i];
+            }
+        }
+        size = kept;
+    }
+}
@@ -4,11 +4,19 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 public class Task {
+    /** Format used to display dates, e.g. "25 Dec 2024". */
+    public static final DateTimeFormatter DISPLAY_DATE_FORMAT = DateTimeFormatter.ofPattern("dd MMM yyyy");
+    /** ID of a task that has not been added to a TaskList yet. */
+    public static final long NO_ID = -1;
+
     private String name;
     private boolean isDone;
     private TaskType type;
     private LocalDateTime startDate;
     private LocalDateTime endDate;
+    private long seq = NO_ID;
+    private String lowerCaseName;
+    private String rendered;
 
     /**
      * Constructor for Task (ToDo).
@@ -27,7 +35,7 @@ public class Task {
      * @param endDate
      */
     public Task(String name, String startDate, String endDate) {
-        this(name, TaskType.EVENT, parseDate(startDate), parseDate(endDate));
+        this(name, TaskType.EVENT, DateCodec.parse(startDate), DateCodec.parse(endDate));
     }
 
     /**
@@ -37,7 +45,7 @@ public class Task {
      * @param endDate
      */
     public Task(String name, String endDate) {
-        this(name, TaskType.DEADLINE, null, parseDate(endDate));
+        this(name, TaskType.DEADLINE, null, DateCodec.parse(endDate));
     }
 
     /**
@@ -57,29 +65,34 @@ public class Task {
     }
 
     /**
-     * Parses a date string in "dd-mm-yy" format to LocalDateTime.
-     * 
-     * @param dateStr the date string to parse
-     * @return LocalDateTime object, or null if parsing fails
+     * Creates a task from already decoded dates, e.g. when loading from a
+     * binary data file.
+     *
+     * @param name
+     * @param type
+     * @param startDate start date, or null for todos and deadlines
+     * @param endDate end date, or null for todos
+     * @return the new task
      */
-    private static LocalDateTime parseDate(String dateStr) {
-        if (dateStr == null || dateStr.trim().isEmpty()) {
-            return null;
-        }
-        try {
-            // Parse dd-mm-yy format
-            String[] parts = dateStr.split("-");
-            if (parts.length != 3) {
-                return null;
-            }
-            int day = Integer.parseInt(parts[0]);
-            int month = Integer.parseInt(parts[1]);
-            int year = Integer.parseInt(parts[2]) + 2000; // yy -> 20yy
-
-            return LocalDateTime.of(year, month, day, 0, 0);
-        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
-            return null;
-        }
+    public static Task of(String name, TaskType type, LocalDateTime startDate, LocalDateTime endDate) {
+        return new Task(name, type, startDate, endDate);
+    }
+
+    /**
+     * Creates a task that keeps the given ID when added to a TaskList, e.g.
+     * when loading from a data file.
+     *
+     * @param name
+     * @param type
+     * @param startDate start date, or null for todos and deadlines
+     * @param endDate end date, or null for todos
+     * @param id the task's ID, or NO_ID to be given the next free one
+     * @return the new task
+     */
+    public static Task of(String name, TaskType type, LocalDateTime startDate, LocalDateTime endDate, long id) {
+        Task task = new Task(name, type, startDate, endDate);
+        task.seq = id;
+        return task;
     }
 
     /**
@@ -118,6 +131,19 @@ public class Task {
         return this.name;
     }
 
+    /**
+     * Gets the name of the task in lower case, for case-insensitive search.
+     * Computed once, as names never change.
+     *
+     * @return lower-cased name of task
+     */
+    String getLowerCaseName() {
+        if (lowerCaseName == null) {
+            lowerCaseName = name.toLowerCase();
+        }
+        return lowerCaseName;
+    }
+
     /**
      * Gets the start date of the task.
      * 
@@ -164,7 +190,45 @@ public class Task {
         if (dateTime == null) {
             return null;
         }
-        return dateTime.format(DateTimeFormatter.ofPattern("dd MMM yyyy"));
+        return dateTime.format(DISPLAY_DATE_FORMAT);
+    }
+
+    /**
+     * Gets the task's ID, which TaskList assigns when the task is first added
+     * and which is saved with it, so it never changes when other tasks are
+     * added or deleted. Commands refer to it as "#id". IDs increase in list
+     * order, so TaskList finds a task's position by binary search.
+     *
+     * @return the ID, or NO_ID if the task has not been added to a TaskList
+     */
+    public long getId() {
+        return seq;
+    }
+
+    /**
+     * Sets the sequence number, which becomes the task's ID. Only TaskList
+     * assigns sequence numbers.
+     *
+     * @param seq sequence number
+     */
+    void setSeq(long seq) {
+        this.seq = seq;
+    }
+
+    /**
+     * Gets a copy of the task with the given done status, keeping its sequence
+     * number. Stores use this instead of changing a task that may already be
+     * part of a snapshot.
+     *
+     * @param isDone done status of the copy
+     * @return the copy
+     */
+    Task withDone(boolean isDone) {
+        Task copy = new Task(name, type, startDate, endDate);
+        copy.isDone = isDone;
+        copy.seq = seq;
+        copy.lowerCaseName = lowerCaseName;
+        return copy;
     }
 
     /**
@@ -190,6 +254,7 @@ public class Task {
      */
     public void markAsDone() {
         this.isDone = true;
+        this.rendered = null;
     }
 
     /**
@@ -197,16 +262,26 @@ public class Task {
      */
     public void markAsNotDone() {
         this.isDone = false;
+        this.rendered = null;
     }
 
+    /**
+     * Renders the task as shown in lists. The result is cached until the
+     * done status changes, since nothing else about a task can change.
+     */
     @Override
     public String toString() {
-        String result = "[" + getTypeIcon() + "][" + getStatusIcon() + "] " + getName();
+        if (rendered != null) {
+            return rendered;
+        }
+        StringBuilder result = new StringBuilder(name.length() + 48);
+        result.append('[').append(getTypeIcon()).append("][").append(getStatusIcon()).append("] ").append(name);
         if (type == TaskType.EVENT) {
-            result += " (from: " + getStartDate() + " to: " + getEndDate() + ")";
+            result.append(" (from: ").append(getStartDate()).append(" to: ").append(getEndDate()).append(')');
         } else if (type == TaskType.DEADLINE) {
-            result += " (by: " + getEndDate() + ")";
+            result.append(" (by: ").append(getEndDate()).append(')');
         }
-        return result;
+        rendered = result.toString();
+        return rendered;
     }
 }
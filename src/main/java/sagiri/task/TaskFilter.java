@@ -0,0 +1,23 @@
+package sagiri.task;
+
+/**
+ * Predicates that bulk mark, unmark and delete commands select tasks by,
+ * e.g. "delete done".
+ */
+public enum TaskFilter {
+    ALL, DONE, UNDONE;
+
+    /**
+     * Checks if a task is selected by this filter.
+     */
+    public boolean matches(Task task) {
+        switch (this) {
+        case DONE:
+            return task.isDone();
+        case UNDONE:
+            return !task.isDone();
+        default:
+            return true;
+        }
+    }
+}
@@ -1,19 +1,83 @@
 package sagiri.task;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.TreeMap;
 
 import sagiri.exception.SagiriException;
 
 import java.time.LocalDateTime;
 
 public class TaskList {
-    private ArrayList<Task> tasks;
+    /** Default memory budget of the undo history. */
+    public static final long DEFAULT_UNDO_BUDGET_BYTES = 16L * 1024 * 1024;
+
+    private TaskStore store;
+    private List<Task> tasks;
+    // Next ID to hand out; IDs start at 1 and are never reused, as data files
+    // record this so that IDs of deleted tasks stay taken (see reserveIds)
+    private long nextSeq = 1;
+
+    // Indexes refer to tasks by sequence number, which is also the task's ID
+    // (see Task.getId); the store is kept in
+    // increasing sequence number order, so a position is a binary search away.
+    // This stands in for an O(1) ID to position hash map with tombstones for
+    // deleted tasks: deletes shift the store down, so such a map would need
+    // every shifted entry rewritten, and tombstones would leave gaps in the
+    // positions shown to the user. Looking up a position therefore costs
+    // O(log n) reads of the store (positionOf, and every index query).
+
+    // Epoch-day -> tasks on that day (event start/end or deadline), in list order
+    private TreeMap<Long, LongList> dateIndex;
+
+    // Lower-cased name trigram -> tasks whose name contains it, in list order.
+    // Built on the first find so loading does not pay for it; deleted tasks
+    // are dropped lazily, see rebuildNameIndex. Finds may run concurrently
+    // with each other (but not with changes), so the first build is guarded.
+    private volatile HashMap<Long, LongList> nameIndex;
+    private int deletedInNameIndex;
+
+    // Days each event and deadline covers, for date range queries. Built on
+    // the first one like the name index, then kept up to date by every change.
+    private volatile IntervalIndex intervalIndex;
+
+    // Changes that can be undone and redone; null until enableUndo is called,
+    // so that loading a list does not fill it
+    private UndoHistory history;
 
     /**
-     * Constructor for TaskList.
+     * Constructor for TaskList, backed by a VersionedTaskStore so that
+     * snapshot and getTasks are O(1) and never see later changes.
      */
     public TaskList() {
-        this.tasks = new ArrayList<>();
+        this(new VersionedTaskStore());
+    }
+
+    /**
+     * Constructor for TaskList with a specific backing store, e.g. a
+     * ColumnarTaskStore for very large lists.
+     *
+     * @param store an empty task store
+     */
+    public TaskList(TaskStore store) {
+        this.store = store;
+        this.tasks = new AbstractList<>() {
+            @Override
+            public Task get(int index) {
+                return store.get(index);
+            }
+
+            @Override
+            public int size() {
+                return store.size();
+            }
+        };
+        this.dateIndex = new TreeMap<>();
     }
 
     /**
@@ -24,7 +88,7 @@ public class TaskList {
             throw new SagiriException("Oops! You have to provide a task name");
         }
         Task task = new Task(taskName);
-        tasks.add(task);
+        append(task);
         return task;
     }
 
@@ -46,15 +110,17 @@ public class TaskList {
         }
 
         // Validate date formats
-        if (!isValidDateFormat(start)) {
+        int startDay = DateCodec.decode(start);
+        if (startDay == DateCodec.INVALID) {
             throw new SagiriException("Invalid start date format. Please use dd-mm-yy format (e.g., 25-12-24)");
         }
-        if (!isValidDateFormat(end)) {
+        int endDay = DateCodec.decode(end);
+        if (endDay == DateCodec.INVALID) {
             throw new SagiriException("Invalid end date format. Please use dd-mm-yy format (e.g., 25-12-24)");
         }
 
-        Task task = new Task(taskName, start, end);
-        tasks.add(task);
+        Task task = Task.of(taskName, TaskType.EVENT, DateCodec.toDateTime(startDay), DateCodec.toDateTime(endDay));
+        append(task);
         return task;
     }
 
@@ -74,33 +140,89 @@ public class TaskList {
         }
 
         // Validate date format
-        if (!isValidDateFormat(end)) {
+        int endDay = DateCodec.decode(end);
+        if (endDay == DateCodec.INVALID) {
             throw new SagiriException("Invalid deadline date format. Please use dd-mm-yy format (e.g., 25-12-24)");
         }
 
-        Task task = new Task(taskName, end);
-        tasks.add(task);
+        Task task = Task.of(taskName, TaskType.DEADLINE, null, DateCodec.toDateTime(endDay));
+        append(task);
         return task;
     }
 
+    /**
+     * Adds an already constructed task to the end of the list, e.g. when
+     * loading from disk. A task loaded with an ID keeps it, which must be
+     * higher than the IDs before it; a task without one gets the next free ID.
+     */
+    public void addTask(Task task) throws SagiriException {
+        long id = task.getId();
+        if (id != Task.NO_ID && id < nextSeq) {
+            throw new SagiriException("Task ID #" + id + " is out of order. IDs must increase down the list");
+        }
+        append(task);
+    }
+
+    /**
+     * Makes sure no task added later is given an ID below nextId, e.g. to keep
+     * the IDs of deleted tasks taken once a data file is loaded. Must be
+     * called after the tasks with lower IDs are added.
+     *
+     * @param nextId the lowest ID that may be handed out, or Task.NO_ID
+     */
+    public void reserveIds(long nextId) {
+        nextSeq = Math.max(nextSeq, nextId);
+    }
+
+    /**
+     * Gets the ID the next task added without one will be given, which is
+     * higher than the ID of every task ever in the list.
+     */
+    public long getNextId() {
+        return nextSeq;
+    }
+
+    /**
+     * Inserts a task with an ID at a position, e.g. when replaying an undone
+     * delete from the journal. Its ID must fit between those of its neighbours.
+     *
+     * @param position 0-based position the task ends up at
+     */
+    public void insertTask(int position, Task task) throws SagiriException {
+        if (position < 0 || position > tasks.size()) {
+            throw new SagiriException("Can't find " + (position + 1));
+        }
+        long id = task.getId();
+        if (id == Task.NO_ID || (position > 0 && store.seqAt(position - 1) >= id)
+                || (position < store.size() && store.seqAt(position) <= id)) {
+            throw new SagiriException("Task ID #" + id + " is out of order. IDs must increase down the list");
+        }
+        insertTasks(single(position), new Task[] {task});
+    }
+
     /**
      * Marks a task as done.
      */
     public void markTaskDone(int taskIndex) throws SagiriException {
-        if (taskIndex < 0 || taskIndex >= tasks.size()) {
-            throw new SagiriException("Can't find " + (taskIndex + 1));
-        }
-        tasks.get(taskIndex).markAsDone();
+        setDone(taskIndex, true);
     }
 
     /**
      * Marks a task as not done.
      */
     public void markTaskNotDone(int taskIndex) throws SagiriException {
+        setDone(taskIndex, false);
+    }
+
+    private void setDone(int taskIndex, boolean isDone) throws SagiriException {
         if (taskIndex < 0 || taskIndex >= tasks.size()) {
             throw new SagiriException("Can't find " + (taskIndex + 1));
         }
-        tasks.get(taskIndex).markAsNotDone();
+        boolean isChanged = history != null && store.get(taskIndex).isDone() != isDone;
+        store.setDone(taskIndex, isDone);
+        if (isChanged) {
+            history.record(Change.marked(single(taskIndex), isDone));
+        }
     }
 
     /**
@@ -110,75 +232,654 @@ public class TaskList {
         if (taskIndex < 0 || taskIndex >= tasks.size()) {
             throw new SagiriException("Can't find " + (taskIndex + 1));
         }
-        return tasks.remove(taskIndex);
+        Task removed = store.remove(taskIndex);
+        unindexDates(removed);
+        if (intervalIndex != null) {
+            unindexInterval(intervalIndex, removed);
+        }
+        deletedInNameIndex++;
+        if (nameIndex != null && deletedInNameIndex > tasks.size()) {
+            rebuildNameIndex();
+        }
+        if (history != null) {
+            history.record(Change.deleted(single(taskIndex), new Task[] {removed}));
+        }
+        return removed;
     }
 
     /**
-     * Gets the list of tasks.
+     * Selects the tasks from one position to another, both included.
+     *
+     * @param fromIndex 0-based position of the first task
+     * @param toIndex 0-based position of the last task
+     * @return the selected positions
      */
-    public ArrayList<Task> getTasks() {
-        return tasks;
+    public BitSet select(int fromIndex, int toIndex) throws SagiriException {
+        if (fromIndex < 0 || fromIndex >= tasks.size()) {
+            throw new SagiriException("Can't find " + (fromIndex + 1));
+        }
+        if (toIndex < 0 || toIndex >= tasks.size()) {
+            throw new SagiriException("Can't find " + (toIndex + 1));
+        }
+        BitSet positions = new BitSet(tasks.size());
+        positions.set(fromIndex, toIndex + 1);
+        return positions;
     }
 
     /**
-     * Gets the number of tasks.
+     * Selects the tasks matching a filter.
+     *
+     * @return the selected positions
      */
-    public int size() {
-        return tasks.size();
+    public BitSet select(TaskFilter filter) {
+        BitSet positions = new BitSet(tasks.size());
+        for (int i = 0; i < store.size(); i++) {
+            if (filter.matches(store.get(i))) {
+                positions.set(i);
+            }
+        }
+        return positions;
     }
 
     /**
-     * Parses a date string in "dd-mm-yy" format to LocalDateTime.
-     * 
-     * @param dateStr the date string to parse
-     * @return LocalDateTime object, or null if parsing fails
+     * Selects the done tasks that are over by a date, for archiving: done
+     * deadlines and events whose last day is before it, and every done todo,
+     * as a todo has no date to go by.
+     *
+     * @param cutoff the date; tasks on or after its day are not selected
+     * @return the selected positions
      */
-    public static LocalDateTime parseDate(String dateStr) {
-        if (dateStr == null || dateStr.trim().isEmpty()) {
-            return null;
+    public BitSet selectDoneBefore(LocalDateTime cutoff) {
+        int cutoffDay = epochDay(cutoff);
+        BitSet positions = new BitSet(tasks.size());
+        for (int i = 0; i < store.size(); i++) {
+            Task task = store.get(i);
+            if (!task.isDone()) {
+                continue;
+            }
+            int[] days = intervalOf(task);
+            if (days == null || days[1] < cutoffDay) {
+                positions.set(i);
+            }
         }
-        try {
-            // Parse dd-mm-yy format
-            String[] parts = dateStr.split("-");
-            if (parts.length != 3) {
-                return null;
+        return positions;
+    }
+
+    /**
+     * Sets the done status of every task at the given positions.
+     *
+     * @param positions 0-based positions, e.g. from select
+     * @param isDone the done status to set
+     */
+    public void markTasks(BitSet positions, boolean isDone) throws SagiriException {
+        checkPositions(positions);
+        BitSet changed = history != null ? new BitSet() : null;
+        for (int i = positions.nextSetBit(0); i >= 0; i = positions.nextSetBit(i + 1)) {
+            if (changed != null && store.get(i).isDone() != isDone) {
+                changed.set(i);
+            }
+            store.setDone(i, isDone);
+        }
+        if (changed != null && !changed.isEmpty()) {
+            history.record(Change.marked(changed, isDone));
+        }
+    }
+
+    /**
+     * Deletes every task at the given positions. The store is compacted in a
+     * single pass and each affected date index entry is filtered once, so
+     * this is O(n) however many tasks are deleted.
+     *
+     * @param positions 0-based positions, e.g. from select
+     * @return the number of tasks deleted
+     */
+    public int deleteTasks(BitSet positions) throws SagiriException {
+        checkPositions(positions);
+        int count = positions.cardinality();
+        long[] removedSeqs = new long[count];
+        Task[] removed = new Task[count];
+        HashSet<Long> days = new HashSet<>();
+        int n = 0;
+        for (int i = positions.nextSetBit(0); i >= 0; i = positions.nextSetBit(i + 1)) {
+            Task task = store.get(i);
+            removed[n] = task;
+            removedSeqs[n++] = task.getId();
+            for (long day : daysOf(task)) {
+                days.add(day);
+            }
+            if (intervalIndex != null) {
+                unindexInterval(intervalIndex, task);
+            }
+        }
+        store.removeAll(positions);
+
+        // Positions ascend, so removedSeqs is sorted
+        for (long day : days) {
+            LongList onDay = dateIndex.get(day);
+            onDay.removeIf(seq -> Arrays.binarySearch(removedSeqs, seq) >= 0);
+            if (onDay.isEmpty()) {
+                dateIndex.remove(day);
             }
-            int day = Integer.parseInt(parts[0]);
-            int month = Integer.parseInt(parts[1]);
-            int year = Integer.parseInt(parts[2]) + 2000; // yy -> 20yy
+        }
+        deletedInNameIndex += count;
+        if (nameIndex != null && deletedInNameIndex > tasks.size()) {
+            rebuildNameIndex();
+        }
+        if (history != null && count > 0) {
+            history.record(Change.deleted(positions, removed));
+        }
+        return count;
+    }
+
+    /**
+     * Starts recording changes so that they can be undone. Until this is
+     * called, e.g. while the list is loaded, nothing is recorded.
+     *
+     * @param budgetBytes roughly how much memory the recorded changes may
+     *        keep alive; the oldest are forgotten beyond it
+     */
+    public void enableUndo(long budgetBytes) {
+        history = new UndoHistory(budgetBytes);
+    }
 
-            return LocalDateTime.of(year, month, day, 0, 0);
-        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+    /**
+     * Forgets every change that could be undone or redone, e.g. once tasks
+     * have been moved out of the list for good. Later changes are still
+     * recorded.
+     */
+    public void clearUndoHistory() {
+        if (history != null) {
+            history.clear();
+        }
+    }
+
+    /**
+     * Reverses the latest change that has not been undone yet.
+     *
+     * @return the change made to reverse it, e.g. to journal, or null if there
+     *         is nothing to undo
+     */
+    public Change undo() throws SagiriException {
+        Change change = history == null ? null : history.takeUndo();
+        if (change == null) {
             return null;
         }
+        Change inverse = change.inverse();
+        apply(inverse);
+        return inverse;
     }
 
     /**
-     * Validates if a date string is in "dd-mm-yy" format.
-     * 
-     * @param dateStr the date string to validate
-     * @return true if valid, false otherwise
+     * Makes the latest undone change again.
+     *
+     * @return the change made, e.g. to journal, or null if there is nothing
+     *         to redo
      */
-    public static boolean isValidDateFormat(String dateStr) {
-        if (dateStr == null || dateStr.length() != 8) {
-            return false;
+    public Change redo() throws SagiriException {
+        Change change = history == null ? null : history.takeRedo();
+        if (change == null) {
+            return null;
         }
+        apply(change);
+        return change;
+    }
+
+    /**
+     * Makes a change from the undo history without recording it again.
+     */
+    private void apply(Change change) throws SagiriException {
+        UndoHistory recording = history;
+        history = null;
         try {
-            String[] parts = dateStr.split("-");
-            if (parts.length != 3) {
-                return false;
+            int position = change.singlePosition();
+            switch (change.getKind()) {
+            case INSERT:
+                insertTasks(change.getPositions(), change.getTasks().toArray(new Task[0]));
+                break;
+            case DELETE:
+                if (position >= 0) {
+                    deleteTask(position);
+                } else {
+                    deleteTasks(change.getPositions());
+                }
+                break;
+            default:
+                boolean isDone = change.getKind() == Change.Kind.MARK;
+                if (position >= 0) {
+                    setDone(position, isDone);
+                } else {
+                    markTasks(change.getPositions(), isDone);
+                }
+                break;
             }
-            int day = Integer.parseInt(parts[0]);
-            int month = Integer.parseInt(parts[1]);
-            int year = Integer.parseInt(parts[2]);
+        } finally {
+            history = recording;
+        }
+    }
 
-            // Basic validation
-            if (day < 1 || day > 31 || month < 1 || month > 12 || year < 0 || year > 99) {
-                return false;
+    /**
+     * Puts tasks back at the given positions and adds them to the indexes.
+     * Their IDs must keep the list in order.
+     */
+    private void insertTasks(BitSet positions, Task[] inserted) {
+        store.insertAll(positions, inserted);
+        for (Task task : inserted) {
+            for (long day : daysOf(task)) {
+                dateIndex.computeIfAbsent(day, d -> new LongList()).insert(task.getId());
             }
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
+            if (nameIndex != null) {
+                String name = task.getLowerCaseName();
+                for (int i = 0; i + 3 <= name.length(); i++) {
+                    nameIndex.computeIfAbsent(trigram(name, i), t -> new LongList()).insert(task.getId());
+                }
+            }
+            if (intervalIndex != null) {
+                indexInterval(intervalIndex, task);
+            }
+            nextSeq = Math.max(nextSeq, task.getId() + 1);
+        }
+        if (history != null) {
+            history.record(Change.inserted(positions, inserted));
+        }
+    }
+
+    private static BitSet single(int position) {
+        BitSet positions = new BitSet(position + 1);
+        positions.set(position);
+        return positions;
+    }
+
+    private void checkPositions(BitSet positions) throws SagiriException {
+        if (positions.length() > tasks.size()) {
+            throw new SagiriException("Can't find " + positions.length());
         }
     }
+
+    /**
+     * Finds the tasks on a given date: events that start or end on it and
+     * deadlines due on it. Uses the date index, so the cost is O(log n) per
+     * matching task rather than a scan of the whole list.
+     *
+     * @param date the date to look up
+     * @return 0-based positions of the matching tasks, in ascending order
+     */
+    public int[] findTasksOn(LocalDateTime date) {
+        LongList onDay = dateIndex.get(date.toLocalDate().toEpochDay());
+        if (onDay == null) {
+            return new int[0];
+        }
+        int[] positions = new int[onDay.size()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = indexOf(onDay.get(i));
+        }
+        return positions;
+    }
+
+    /**
+     * Finds the tasks in a range of dates: deadlines due in it and events that
+     * overlap it, including events that start before it and end after it.
+     * Uses the interval index, so the cost grows with the number of matches
+     * rather than the length of the list.
+     *
+     * @param from first date of the range
+     * @param to last date of the range
+     * @return 0-based positions of the matching tasks, by start date and then
+     *         list order
+     */
+    public int[] findTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return findBetween(epochDay(from), epochDay(to));
+    }
+
+    private int[] findBetween(int fromDay, int toDay) {
+        IntervalIndex index = intervalIndex;
+        if (index == null) {
+            index = buildIntervalIndexOnce();
+        }
+        long[] seqs = index.findOverlapping(fromDay, toDay);
+        int[] positions = new int[seqs.length];
+        for (int i = 0; i < seqs.length; i++) {
+            positions[i] = indexOf(seqs[i]);
+        }
+        return positions;
+    }
+
+    /**
+     * Finds the other events that share at least one day with an event in
+     * the list, e.g. to warn about a clash when it is added.
+     *
+     * @param event an event in the list
+     * @return 0-based positions of the overlapping events, by start date and
+     *         then list order
+     */
+    public int[] findOverlappingEvents(Task event) {
+        int[] days = intervalOf(event);
+        int[] positions = findBetween(days[0], days[1]);
+        int count = 0;
+        for (int position : positions) {
+            Task task = store.get(position);
+            if (task.getType() == TaskType.EVENT && task.getId() != event.getId()) {
+                positions[count++] = position;
+            }
+        }
+        return Arrays.copyOf(positions, count);
+    }
+
+    /**
+     * Finds groups of overlapping events. The interval index already keeps
+     * events in start order, so a single sweep finds every group: an event
+     * joins the current group if it starts before the group's last end day,
+     * and starts a new one otherwise. Two events in a group need not overlap
+     * each other, but a chain of overlapping events links them.
+     *
+     * @return 0-based positions of the events in each group of two or more,
+     *         by start date and then list order
+     */
+    public List<int[]> findConflicts() {
+        IntervalIndex index = intervalIndex;
+        if (index == null) {
+            index = buildIntervalIndexOnce();
+        }
+        ConflictSweep sweep = new ConflictSweep();
+        index.forEach(sweep);
+        sweep.endGroup();
+        return sweep.groups;
+    }
+
+    /**
+     * Finds the tasks whose name contains the keyword, ignoring case.
+     * Keywords of three or more characters are looked up in the trigram index,
+     * so only tasks sharing the keyword's rarest trigram are checked.
+     *
+     * @param keyword the keyword to search for
+     * @return 0-based positions of the matching tasks, in ascending order
+     */
+    public int[] findTasksContaining(String keyword) {
+        String lowerKeyword = keyword.toLowerCase();
+        HashMap<Long, LongList> index = nameIndex;
+        if (index == null) {
+            index = buildNameIndexOnce();
+        }
+        LongList candidates = null;
+        if (lowerKeyword.length() >= 3) {
+            for (int i = 0; i + 3 <= lowerKeyword.length(); i++) {
+                LongList posting = index.get(trigram(lowerKeyword, i));
+                if (posting == null) {
+                    return new int[0];
+                }
+                if (candidates == null || posting.size() < candidates.size()) {
+                    candidates = posting;
+                }
+            }
+        }
+
+        int candidateCount = candidates == null ? store.size() : candidates.size();
+        int[] positions = new int[candidateCount];
+        int count = 0;
+        for (int i = 0; i < candidateCount; i++) {
+            // Stale entries for deleted tasks are no longer in the list
+            int position = candidates == null ? i : indexOf(candidates.get(i));
+            if (position >= 0 && store.get(position).getLowerCaseName().contains(lowerKeyword)) {
+                positions[count++] = position;
+            }
+        }
+        return Arrays.copyOf(positions, count);
+    }
+
+    /**
+     * Gets the tasks as they are now. With a store that has lock-free
+     * snapshots, like the default one, this is an immutable snapshot.
+     * Other stores return a read-only view that follows later changes
+     * rather than copy every task, so it must not be kept across them.
+     * Changes must go through TaskList so that its indexes stay up to date.
+     */
+    public List<Task> getTasks() {
+        return store.isSnapshotThreadSafe() ? store.snapshot() : tasks;
+    }
+
+    /**
+     * Gets an immutable snapshot of the tasks, unaffected by later changes,
+     * e.g. to save them while commands keep running.
+     */
+    public List<Task> snapshot() {
+        return store.snapshot();
+    }
+
+    /**
+     * Checks if snapshot can be taken without keeping changes out, as with a
+     * VersionedTaskStore. Otherwise the caller must exclude writers while the
+     * snapshot is taken.
+     */
+    public boolean hasLockFreeSnapshots() {
+        return store.isSnapshotThreadSafe();
+    }
+
+    /**
+     * Finds the current position of the task with the given ID. IDs increase
+     * down the list, so this is a binary search rather than a scan.
+     *
+     * @param id the task's ID, as shown by "list --ids"
+     * @return 0-based position, or -1 if no task has that ID
+     */
+    public int positionOf(long id) {
+        return indexOf(id);
+    }
+
+    /**
+     * Gets the number of tasks.
+     */
+    public int size() {
+        return store.size();
+    }
+
+    private void append(Task task) {
+        if (task.getId() == Task.NO_ID) {
+            task.setSeq(nextSeq);
+        }
+        nextSeq = task.getId() + 1;
+        store.add(task);
+        if (history != null) {
+            history.record(Change.inserted(single(store.size() - 1), new Task[] {task}));
+        }
+        indexDates(task);
+        if (nameIndex != null) {
+            indexName(nameIndex, task);
+        }
+        if (intervalIndex != null) {
+            indexInterval(intervalIndex, task);
+        }
+    }
+
+    /**
+     * Finds the position of the task with the given sequence number, or -1 if
+     * it is no longer in the list. The store is kept in increasing sequence
+     * number order, so this is a binary search.
+     */
+    private int indexOf(long seq) {
+        int low = 0;
+        int high = store.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midSeq = store.seqAt(mid);
+            if (midSeq < seq) {
+                low = mid + 1;
+            } else if (midSeq > seq) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private void indexDates(Task task) {
+        for (long day : daysOf(task)) {
+            dateIndex.computeIfAbsent(day, d -> new LongList()).add(task.getId());
+        }
+    }
+
+    private void unindexDates(Task task) {
+        for (long day : daysOf(task)) {
+            LongList onDay = dateIndex.get(day);
+            onDay.remove(task.getId());
+            if (onDay.isEmpty()) {
+                dateIndex.remove(day);
+            }
+        }
+    }
+
+    private static void indexName(HashMap<Long, LongList> index, Task task) {
+        String name = task.getLowerCaseName();
+        for (int i = 0; i + 3 <= name.length(); i++) {
+            LongList posting = index.computeIfAbsent(trigram(name, i), t -> new LongList());
+            // Skip repeated trigrams within the same name
+            if (posting.isEmpty() || posting.last() != task.getId()) {
+                posting.add(task.getId());
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the trigram index from the live tasks. Deletes leave stale
+     * entries behind instead of shifting every posting list; once they
+     * outnumber the live tasks the index is rebuilt, which keeps the cost of
+     * a delete amortised O(1).
+     */
+    private void rebuildNameIndex() {
+        HashMap<Long, LongList> index = new HashMap<>();
+        for (Task task : tasks) {
+            indexName(index, task);
+        }
+        deletedInNameIndex = 0;
+        nameIndex = index;
+    }
+
+    private synchronized HashMap<Long, LongList> buildNameIndexOnce() {
+        if (nameIndex == null) {
+            rebuildNameIndex();
+        }
+        return nameIndex;
+    }
+
+    /**
+     * Collects the groups of overlapping events for findConflicts.
+     */
+    private class ConflictSweep implements IntervalIndex.Visitor {
+        private final List<int[]> groups = new ArrayList<>();
+        private int[] group = new int[8];
+        private int size;
+        // Last end day of the events in the current group
+        private int groupEnd;
+
+        @Override
+        public void visit(int startDay, int endDay, long seq) {
+            int position = indexOf(seq);
+            if (store.get(position).getType() != TaskType.EVENT) {
+                return;
+            }
+            if (size > 0 && startDay > groupEnd) {
+                endGroup();
+            }
+            if (size == group.length) {
+                group = Arrays.copyOf(group, size * 2);
+            }
+            group[size++] = position;
+            groupEnd = size == 1 ? endDay : Math.max(groupEnd, endDay);
+        }
+
+        void endGroup() {
+            if (size > 1) {
+                groups.add(Arrays.copyOf(group, size));
+            }
+            size = 0;
+        }
+    }
+
+    private synchronized IntervalIndex buildIntervalIndexOnce() {
+        if (intervalIndex == null) {
+            IntervalIndex index = new IntervalIndex();
+            for (Task task : tasks) {
+                indexInterval(index, task);
+            }
+            intervalIndex = index;
+        }
+        return intervalIndex;
+    }
+
+    private static void indexInterval(IntervalIndex index, Task task) {
+        int[] days = intervalOf(task);
+        if (days != null) {
+            index.add(days[0], days[1], task.getId());
+        }
+    }
+
+    private static void unindexInterval(IntervalIndex index, Task task) {
+        int[] days = intervalOf(task);
+        if (days != null) {
+            index.remove(days[0], task.getId());
+        }
+    }
+
+    /**
+     * Gets the first and last epoch-day a task covers: from start to end for
+     * an event, the due date for a deadline, or null for a todo.
+     */
+    private static int[] intervalOf(Task task) {
+        LocalDateTime end = task.getType() != TaskType.TODO ? task.getEndDateTime() : null;
+        if (end == null) {
+            return null;
+        }
+        LocalDateTime start = task.getType() == TaskType.EVENT ? task.getStartDateTime() : null;
+        int endDay = DateCodec.toEpochDay(end);
+        int startDay = start != null ? DateCodec.toEpochDay(start) : endDay;
+        return new int[] {Math.min(startDay, endDay), Math.max(startDay, endDay)};
+    }
+
+    /**
+     * Gets the epoch-day of a query date, clamped to the int range the
+     * interval index uses.
+     */
+    private static int epochDay(LocalDateTime date) {
+        long day = date.toLocalDate().toEpochDay();
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, day));
+    }
+
+    private static long trigram(String text, int index) {
+        return ((long) text.charAt(index) << 32) | ((long) text.charAt(index + 1) << 16) | text.charAt(index + 2);
+    }
+
+    /**
+     * Gets the distinct epoch-days a task is listed under by the check command.
+     */
+    private static long[] daysOf(Task task) {
+        LocalDateTime start = task.getType() == TaskType.EVENT ? task.getStartDateTime() : null;
+        LocalDateTime end = task.getType() != TaskType.TODO ? task.getEndDateTime() : null;
+        if (start == null && end == null) {
+            return new long[0];
+        } else if (start == null || end == null) {
+            return new long[] {(start != null ? start : end).toLocalDate().toEpochDay()};
+        }
+        long startDay = start.toLocalDate().toEpochDay();
+        long endDay = end.toLocalDate().toEpochDay();
+        return startDay == endDay ? new long[] {startDay} : new long[] {startDay, endDay};
+    }
+
+    /**
+     * Parses a date string in "dd-mm-yy" format to LocalDateTime.
+     * 
+     * @param dateStr the date string to parse
+     * @return LocalDateTime object, or null if parsing fails
+     */
+    public static LocalDateTime parseDate(String dateStr) {
+        return DateCodec.parse(dateStr);
+    }
+
+    /**
+     * Validates if a date string is in "dd-mm-yy" format and names a real day.
+     * 
+     * @param dateStr the date string to validate
+     * @return true if valid, false otherwise
+     */
+    public static boolean isValidDateFormat(String dateStr) {
+        return DateCodec.isValid(dateStr);
+    }
 }
@@ -0,0 +1,92 @@
+package sagiri.task;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Backing storage for the tasks of a TaskList, in list order.
+ *
+ * TaskList keeps its indexes and validation on top of the store, so a store
+ * only needs positional access. Tasks returned by a store may be views that
+ * are created on demand; changes must go through the store, not the task.
+ * A store never changes a task it has handed out: setDone replaces it.
+ */
+public interface TaskStore {
+
+    /**
+     * Gets the number of tasks.
+     */
+    int size();
+
+    /**
+     * Gets the task at a position.
+     */
+    Task get(int index);
+
+    /**
+     * Gets the sequence number of the task at a position, without
+     * materializing the task.
+     */
+    long seqAt(int index);
+
+    /**
+     * Adds a task, whose sequence number has already been assigned, to the end.
+     */
+    void add(Task task);
+
+    /**
+     * Removes the task at a position and returns it.
+     */
+    Task remove(int index);
+
+    /**
+     * Sets the done status of the task at a position.
+     */
+    void setDone(int index, boolean isDone);
+
+    /**
+     * Removes the tasks at the given positions, keeping the rest in order.
+     * By default this removes them one at a time from the back; stores should
+     * override it with a single compaction pass.
+     *
+     * @param positions positions to remove, all less than size
+     */
+    default void removeAll(BitSet positions) {
+        for (int i = positions.previousSetBit(size() - 1); i >= 0; i = positions.previousSetBit(i - 1)) {
+            remove(i);
+        }
+    }
+
+    /**
+     * Inserts tasks so that they end up at the given positions, keeping the
+     * others in order. This is the reverse of removeAll, e.g. to undo a delete.
+     *
+     * @param positions positions the tasks end up at
+     * @param inserted the tasks, in order of position, with sequence numbers
+     *        that keep the store in order
+     */
+    void insertAll(BitSet positions, Task[] inserted);
+
+    /**
+     * Gets an immutable list of the tasks as they are now, unaffected by later
+     * changes. By default this copies the list, so callers must keep writers
+     * out while it runs.
+     */
+    default List<Task> snapshot() {
+        Task[] copy = new Task[size()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = get(i);
+        }
+        return Collections.unmodifiableList(Arrays.asList(copy));
+    }
+
+    /**
+     * Checks if snapshot may be called while another thread is changing the
+     * store.
+     */
+    default boolean isSnapshotThreadSafe() {
+        return false;
+    }
+}
@@ -0,0 +1,78 @@
+package sagiri.task;
+
+import java.util.ArrayDeque;
+
+/**
+ * Recent changes to a TaskList that can be undone, and undone changes that
+ * can be redone, kept within a memory budget.
+ *
+ * Each change is recorded as what it did rather than as a copy of the list,
+ * so most commands add a few dozen bytes. Once the changes add up to more
+ * than the budget, the oldest are forgotten.
+ */
+class UndoHistory {
+    private final long budgetBytes;
+    private final ArrayDeque<Change> undoable = new ArrayDeque<>();
+    private final ArrayDeque<Change> redoable = new ArrayDeque<>();
+    private long usedBytes;
+
+    /**
+     * Constructor for UndoHistory.
+     *
+     * @param budgetBytes most memory, as estimated by Change.estimateBytes,
+     *        that recorded changes may keep alive
+     */
+    UndoHistory(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * Records a change that has just been made. Anything undone before it
+     * can no longer be redone.
+     */
+    void record(Change change) {
+        while (!redoable.isEmpty()) {
+            usedBytes -= redoable.pop().estimateBytes();
+        }
+        undoable.push(change);
+        usedBytes += change.estimateBytes();
+        while (usedBytes > budgetBytes && !undoable.isEmpty()) {
+            usedBytes -= undoable.removeLast().estimateBytes();
+        }
+    }
+
+    /**
+     * Forgets every recorded change.
+     */
+    void clear() {
+        undoable.clear();
+        redoable.clear();
+        usedBytes = 0;
+    }
+
+    /**
+     * Takes the latest change to undo, moving it to the redo history.
+     *
+     * @return the change, which the caller must reverse, or null if there is none
+     */
+    Change takeUndo() {
+        Change change = undoable.poll();
+        if (change != null) {
+            redoable.push(change);
+        }
+        return change;
+    }
+
+    /**
+     * Takes the latest undone change, moving it back to the undo history.
+     *
+     * @return the change, which the caller must make again, or null if there is none
+     */
+    Change takeRedo() {
+        Change change = redoable.poll();
+        if (change != null) {
+            undoable.push(change);
+        }
+        return change;
+    }
+}
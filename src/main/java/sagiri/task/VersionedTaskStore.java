@@ -0,0 +1,343 @@
+package sagiri.task;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Task store that keeps tasks in a persistent tree, so that every change
+ * produces a new version sharing all untouched nodes with the previous one.
+ *
+ * Leaves hold up to 32 tasks and branches up to 32 children along with their
+ * running sizes. A change copies only the O(log n) nodes on its path and then
+ * publishes the new root through a volatile field, so snapshot is O(1) and
+ * the list it returns can be read from any thread without locking while
+ * changes carry on.
+ */
+public class VersionedTaskStore implements TaskStore {
+    private static final int WIDTH = 32;
+
+    private volatile Node root = new Leaf(new Task[0]);
+
+    @Override
+    public int size() {
+        return root.size();
+    }
+
+    @Override
+    public Task get(int index) {
+        Node current = root;
+        checkIndex(index, current.size());
+        return current.get(index);
+    }
+
+    @Override
+    public long seqAt(int index) {
+        return get(index).getId();
+    }
+
+    @Override
+    public void add(Task task) {
+        Node[] appended = root.append(task);
+        root = appended.length == 1 ? appended[0] : new Branch(appended);
+    }
+
+    @Override
+    public Task remove(int index) {
+        Node current = root;
+        checkIndex(index, current.size());
+        Task removed = current.get(index);
+        Node next = current.remove(index);
+        if (next == null) {
+            next = new Leaf(new Task[0]);
+        }
+        while (next instanceof Branch && ((Branch) next).children.length == 1) {
+            next = ((Branch) next).children[0];
+        }
+        root = next;
+        return removed;
+    }
+
+    @Override
+    public void setDone(int index, boolean isDone) {
+        Node current = root;
+        checkIndex(index, current.size());
+        root = current.set(index, current.get(index).withDone(isDone));
+    }
+
+    /**
+     * Removes the tasks by building a new tree from the rest, with leaves and
+     * branches packed full from the left. This is O(n), where removing them
+     * one at a time would copy a path per task.
+     */
+    @Override
+    public void removeAll(BitSet positions) {
+        Node current = root;
+        Task[] all = new Task[current.size()];
+        current.copyInto(all, 0);
+        Task[] kept = new Task[all.length - positions.cardinality()];
+        int count = 0;
+        for (int i = 0; i < all.length; i++) {
+            if (!positions.get(i)) {
+                kept[count++] = all[i];
+            }
+        }
+        root = build(kept);
+    }
+
+    /**
+     * Inserts the tasks by building a new tree, as removeAll does.
+     */
+    @Override
+    public void insertAll(BitSet positions, Task[] inserted) {
+        Node current = root;
+        Task[] old = new Task[current.size()];
+        current.copyInto(old, 0);
+        Task[] all = new Task[old.length + inserted.length];
+        int from = 0;
+        int next = 0;
+        for (int i = 0; i < all.length; i++) {
+            all[i] = positions.get(i) ? inserted[next++] : old[from++];
+        }
+        root = build(all);
+    }
+
+    /**
+     * Gets the current version. Later changes publish new versions and never
+     * touch this one.
+     */
+    @Override
+    public List<Task> snapshot() {
+        return new Version(root);
+    }
+
+    @Override
+    public boolean isSnapshotThreadSafe() {
+        return true;
+    }
+
+    private static Node build(Task[] tasks) {
+        if (tasks.length == 0) {
+            return new Leaf(new Task[0]);
+        }
+        Node[] level = new Node[(tasks.length + WIDTH - 1) / WIDTH];
+        for (int i = 0; i < level.length; i++) {
+            level[i] = new Leaf(Arrays.copyOfRange(tasks, i * WIDTH, Math.min(tasks.length, (i + 1) * WIDTH)));
+        }
+        while (level.length > 1) {
+            Node[] parents = new Node[(level.length + WIDTH - 1) / WIDTH];
+            for (int i = 0; i < parents.length; i++) {
+                parents[i] = new Branch(Arrays.copyOfRange(level, i * WIDTH, Math.min(level.length, (i + 1) * WIDTH)));
+            }
+            level = parents;
+        }
+        return level[0];
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+    }
+
+    /**
+     * Read-only list over one version of the tree.
+     */
+    private static class Version extends AbstractList<Task> implements RandomAccess {
+        private final Node root;
+
+        Version(Node root) {
+            this.root = root;
+        }
+
+        @Override
+        public Task get(int index) {
+            checkIndex(index, root.size());
+            return root.get(index);
+        }
+
+        @Override
+        public int size() {
+            return root.size();
+        }
+    }
+
+    /**
+     * Immutable tree node.
+     */
+    private abstract static class Node {
+        abstract int size();
+
+        abstract Task get(int index);
+
+        abstract Node set(int index, Task task);
+
+        /**
+         * Appends a task, returning the new node, or the new node and a new
+         * right sibling of the same height if this node was full.
+         */
+        abstract Node[] append(Task task);
+
+        /**
+         * Removes a task, returning the new node, or null if it is now empty.
+         */
+        abstract Node remove(int index);
+
+        /**
+         * Copies the tasks in order into target from offset, returning the
+         * offset after the last one.
+         */
+        abstract int copyInto(Task[] target, int offset);
+    }
+
+    private static final class Leaf extends Node {
+        private final Task[] tasks;
+
+        Leaf(Task[] tasks) {
+            this.tasks = tasks;
+        }
+
+        @Override
+        int size() {
+            return tasks.length;
+        }
+
+        @Override
+        Task get(int index) {
+            return tasks[index];
+        }
+
+        @Override
+        Node set(int index, Task task) {
+            Task[] copy = tasks.clone();
+            copy[index] = task;
+            return new Leaf(copy);
+        }
+
+        @Override
+        Node[] append(Task task) {
+            if (tasks.length == WIDTH) {
+                return new Node[] {this, new Leaf(new Task[] {task})};
+            }
+            Task[] copy = Arrays.copyOf(tasks, tasks.length + 1);
+            copy[tasks.length] = task;
+            return new Node[] {new Leaf(copy)};
+        }
+
+        @Override
+        Node remove(int index) {
+            if (tasks.length == 1) {
+                return null;
+            }
+            Task[] copy = new Task[tasks.length - 1];
+            System.arraycopy(tasks, 0, copy, 0, index);
+            System.arraycopy(tasks, index + 1, copy, index, copy.length - index);
+            return new Leaf(copy);
+        }
+
+        @Override
+        int copyInto(Task[] target, int offset) {
+            System.arraycopy(tasks, 0, target, offset, tasks.length);
+            return offset + tasks.length;
+        }
+    }
+
+    private static final class Branch extends Node {
+        private final Node[] children;
+        // ends[i] is the total size of children 0 to i
+        private final int[] ends;
+
+        Branch(Node[] children) {
+            this.children = children;
+            this.ends = new int[children.length];
+            int total = 0;
+            for (int i = 0; i < children.length; i++) {
+                total += children[i].size();
+                ends[i] = total;
+            }
+        }
+
+        @Override
+        int size() {
+            return ends[ends.length - 1];
+        }
+
+        @Override
+        Task get(int index) {
+            int child = childFor(index);
+            return children[child].get(index - offsetOf(child));
+        }
+
+        @Override
+        Node set(int index, Task task) {
+            int child = childFor(index);
+            Node[] copy = children.clone();
+            copy[child] = children[child].set(index - offsetOf(child), task);
+            return new Branch(copy);
+        }
+
+        @Override
+        Node[] append(Task task) {
+            int last = children.length - 1;
+            Node[] appended = children[last].append(task);
+            Node[] copy;
+            if (appended.length == 1) {
+                copy = children.clone();
+                copy[last] = appended[0];
+                return new Node[] {new Branch(copy)};
+            }
+            if (children.length == WIDTH) {
+                return new Node[] {this, new Branch(new Node[] {appended[1]})};
+            }
+            copy = Arrays.copyOf(children, children.length + 1);
+            copy[last + 1] = appended[1];
+            return new Node[] {new Branch(copy)};
+        }
+
+        @Override
+        Node remove(int index) {
+            int child = childFor(index);
+            Node replacement = children[child].remove(index - offsetOf(child));
+            if (replacement != null) {
+                Node[] copy = children.clone();
+                copy[child] = replacement;
+                return new Branch(copy);
+            }
+            if (children.length == 1) {
+                return null;
+            }
+            Node[] copy = new Node[children.length - 1];
+            System.arraycopy(children, 0, copy, 0, child);
+            System.arraycopy(children, child + 1, copy, child, copy.length - child);
+            return new Branch(copy);
+        }
+
+        @Override
+        int copyInto(Task[] target, int offset) {
+            for (Node child : children) {
+                offset = child.copyInto(target, offset);
+            }
+            return offset;
+        }
+
+        private int childFor(int index) {
+            int low = 0;
+            int high = ends.length - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (ends[mid] <= index) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private int offsetOf(int child) {
+            return child == 0 ? 0 : ends[child - 1];
+        }
+    }
+}
@@ -1,164 +1,527 @@
 package sagiri.ui;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.List;
 
+import sagiri.task.Change;
 import sagiri.task.Task;
-import sagiri.task.TaskType;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
+/**
+ * Renders all console output.
+ *
+ * Output is collected in a reusable buffer and written in one go at the end
+ * of each message, or earlier when the buffer fills up, instead of one
+ * synchronized System.out.println per line.
+ *
+ * The buffer and output settings belong to the calling thread, so that each
+ * server session renders into its own connection.
+ */
 public class Ui {
     private static final String BAR = "____________________________________________________________";
+    private static final String NEWLINE = System.lineSeparator();
+    private static final int FLUSH_THRESHOLD = 16 * 1024;
+    private static final int MAX_OVERLAPS_SHOWN = 5;
+    private static final ThreadLocal<Channel> CHANNEL = ThreadLocal.withInitial(Channel::new);
+
+    /**
+     * Output state of one thread.
+     */
+    private static class Channel {
+        final StringBuilder buffer = new StringBuilder(FLUSH_THRESHOLD + 1024);
+        char[] chunk = new char[FLUSH_THRESHOLD + 1024];
+        Writer output;
+        boolean isAutoFlush = true;
+        PrintStream wrappedOut;
+        Writer systemOutWriter;
+
+        Writer currentWriter() {
+            if (output != null) {
+                return output;
+            }
+            // Follow System.setOut, e.g. when output is captured in tests
+            if (wrappedOut != System.out) {
+                wrappedOut = System.out;
+                systemOutWriter = new OutputStreamWriter(wrappedOut);
+            }
+            return systemOutWriter;
+        }
+    }
+
+    /**
+     * Sets where the calling thread's output is written. Pass null to write
+     * to System.out.
+     *
+     * @param writer the writer to render into
+     */
+    public static void setOutput(Writer writer) {
+        flush();
+        CHANNEL.get().output = writer;
+    }
+
+    /**
+     * Sets whether output is written at the end of every message. When off,
+     * output is only written when the buffer fills up or flush is called,
+     * e.g. while running a script.
+     */
+    public static void setAutoFlush(boolean autoFlush) {
+        CHANNEL.get().isAutoFlush = autoFlush;
+        if (autoFlush) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes any buffered output.
+     */
+    public static void flush() {
+        Channel channel = CHANNEL.get();
+        StringBuilder buffer = channel.buffer;
+        int length = buffer.length();
+        if (length == 0) {
+            return;
+        }
+        if (channel.chunk.length < length) {
+            channel.chunk = new char[length];
+        }
+        buffer.getChars(0, length, channel.chunk, 0);
+        buffer.setLength(0);
+        try {
+            Writer writer = channel.currentWriter();
+            writer.write(channel.chunk, 0, length);
+            writer.flush();
+        } catch (IOException e) {
+            System.err.println("Error writing output: " + e.getMessage());
+        }
+    }
+
+    private static void endMessage() {
+        if (CHANNEL.get().isAutoFlush) {
+            flush();
+        }
+    }
+
+    private static void println(String line) {
+        StringBuilder buffer = CHANNEL.get().buffer;
+        buffer.append(line).append(NEWLINE);
+        if (buffer.length() >= FLUSH_THRESHOLD) {
+            flush();
+        }
+    }
+
+    private static void printNumbered(int position, Task task) {
+        StringBuilder buffer = CHANNEL.get().buffer;
+        buffer.append(position + 1).append('.').append(task.toString()).append(NEWLINE);
+        if (buffer.length() >= FLUSH_THRESHOLD) {
+            flush();
+        }
+    }
+
+    private static void printNumbered(int position, Task task, long id) {
+        StringBuilder buffer = CHANNEL.get().buffer;
+        buffer.append(position + 1).append('.').append(task.toString()).append(" (#").append(id).append(')')
+                .append(NEWLINE);
+        if (buffer.length() >= FLUSH_THRESHOLD) {
+            flush();
+        }
+    }
 
     /**
      * Shows the initial greeting message.
      */
     public static void printGreeting() {
-        System.out.println(BAR);
-        System.out.println("Hello! I'm Sagiri");
-        System.out.println("What can I do for you?");
-        System.out.println(BAR);
+        println(BAR);
+        println("Hello! I'm Sagiri");
+        println("What can I do for you?");
+        println(BAR);
+        endMessage();
     }
 
     /**
      * Lists all tasks in the task list.
      */
-    public static void printTasks(ArrayList<Task> tasks) {
-        System.out.println(BAR);
+    public static void printTasks(List<Task> tasks) {
+        printTasks(tasks, false);
+    }
+
+    /**
+     * Lists all tasks in the task list, optionally followed by their IDs,
+     * e.g. "1.[T][ ] read book (#12)".
+     */
+    public static void printTasks(List<Task> tasks, boolean showIds) {
+        println(BAR);
         for (int i = 0; i < tasks.size(); i++) {
-            System.out.println((i + 1) + "." + tasks.get(i).toString());
+            if (showIds) {
+                printNumbered(i, tasks.get(i), tasks.get(i).getId());
+            } else {
+                printNumbered(i, tasks.get(i));
+            }
+        }
+        println(BAR);
+        endMessage();
+    }
+
+    /**
+     * Lists at most count tasks starting at position from, numbered as in the
+     * full list. Only the tasks shown are read, so a page of a large list
+     * costs the same as a page of a small one.
+     */
+    public static void printPage(List<Task> tasks, int from, int count, boolean showIds) {
+        int size = tasks.size();
+        int to = (int) Math.min((long) from + count, size);
+        println(BAR);
+        for (int i = from; i < to; i++) {
+            Task task = tasks.get(i);
+            if (showIds) {
+                printNumbered(i, task, task.getId());
+            } else {
+                printNumbered(i, task);
+            }
+        }
+        if (from < to) {
+            println("Showing tasks " + (from + 1) + "-" + to + " of " + size + ".");
+        } else {
+            println("Nothing to show here, you have " + size + " tasks in the list.");
         }
-        System.out.println(BAR);
+        println(BAR);
+        endMessage();
     }
 
     /**
      * Prints message when task is marked as done.
      */
     public static void printMarkedDone(Task task) {
-        System.out.println(BAR);
-        System.out.println("Nice! I've marked this task as done:");
-        System.out.println(task.toString());
-        System.out.println(BAR);
+        println(BAR);
+        println("Nice! I've marked this task as done:");
+        println(task.toString());
+        println(BAR);
+        endMessage();
     }
 
     /**
      * Prints message when task is marked as not done.
      */
     public static void printMarkedNotDone(Task task) {
-        System.out.println(BAR);
-        System.out.println("OK, I've marked this task as not done yet:");
-        System.out.println(task.toString());
-        System.out.println(BAR);
+        println(BAR);
+        println("OK, I've marked this task as not done yet:");
+        println(task.toString());
+        println(BAR);
+        endMessage();
     }
 
     /**
      * Prints message when task is deleted.
      */
     public static void printDeleted(Task task) {
-        System.out.println(BAR);
-        System.out.println("Noted. I've removed this task:");
-        System.out.println(task.toString());
-        System.out.println(BAR);
+        println(BAR);
+        println("Noted. I've removed this task:");
+        println(task.toString());
+        println(BAR);
+        endMessage();
+    }
+
+    /**
+     * Prints message when a bulk mark or unmark command has run.
+     *
+     * @param count number of tasks changed
+     * @param isDone the done status they were given
+     */
+    public static void printMarkedMany(int count, boolean isDone) {
+        println(BAR);
+        if (count == 0) {
+            println("No tasks matched, so nothing changed.");
+        } else if (isDone) {
+            println("Nice! I've marked " + count + " tasks as done.");
+        } else {
+            println("OK, I've marked " + count + " tasks as not done yet.");
+        }
+        println(BAR);
+        endMessage();
+    }
+
+    /**
+     * Prints message when a bulk delete command has run.
+     *
+     * @param count number of tasks deleted
+     * @param totalTasks number of tasks left
+     */
+    public static void printDeletedMany(int count, int totalTasks) {
+        println(BAR);
+        if (count == 0) {
+            println("No tasks matched, so nothing changed.");
+        } else {
+            println("Noted. I've removed " + count + " tasks.");
+        }
+        println("Now you have " + totalTasks + " tasks in the list.");
+        println(BAR);
+        endMessage();
+    }
+
+    /**
+     * Prints what an undo or redo changed.
+     *
+     * @param change the change made, or null if there was nothing to undo or redo
+     * @param isUndo true for undo, false for redo
+     */
+    public static void printUndone(Change change, boolean isUndo, int totalTasks) {
+        println(BAR);
+        if (change == null) {
+            println(isUndo ? "Nothing to undo." : "Nothing to redo.");
+        } else {
+            String count = change.size() + (change.size() == 1 ? " task" : " tasks");
+            println((isUndo ? "Undone! " : "Redone! ") + describe(change.getKind(), count));
+            println("Now you have " + totalTasks + " tasks in the list.");
+        }
+        println(BAR);
+        endMessage();
+    }
+
+    private static String describe(Change.Kind kind, String count) {
+        switch (kind) {
+        case INSERT:
+            return "Put back " + count + ".";
+        case DELETE:
+            return "Removed " + count + ".";
+        case MARK:
+            return "Marked " + count + " as done.";
+        default:
+            return "Marked " + count + " as not done.";
+        }
     }
 
     /**
      * Prints message when task is added.
      */
     public static void printAdded(Task task, int totalTasks) {
-        System.out.println("Got it. I've added this task:");
-        System.out.println("  " + task.toString());
-        System.out.println("Now you have " + totalTasks + " tasks in the list.");
-        System.out.println(BAR);
+        printAdded(task, totalTasks, null, new int[0]);
+    }
+
+    /**
+     * Prints message when task is added, warning about the events it overlaps.
+     *
+     * @param tasks the full task list, used for numbering
+     * @param overlaps 0-based positions of the events the new task overlaps
+     */
+    public static void printAdded(Task task, int totalTasks, List<Task> tasks, int[] overlaps) {
+        println("Got it. I've added this task:");
+        println("  " + task.toString());
+        println("Now you have " + totalTasks + " tasks in the list.");
+        if (overlaps.length > 0) {
+            println("Heads up, it overlaps " + overlaps.length + " other event(s):");
+            for (int i = 0; i < Math.min(overlaps.length, MAX_OVERLAPS_SHOWN); i++) {
+                printNumbered(overlaps[i], tasks.get(overlaps[i]));
+            }
+            if (overlaps.length > MAX_OVERLAPS_SHOWN) {
+                println("...and " + (overlaps.length - MAX_OVERLAPS_SHOWN) + " more. Use conflicts to see them all.");
+            }
+        }
+        println(BAR);
+        endMessage();
     }
 
     /**
      * Prints tasks for a specific date.
+     *
+     * @param tasks the full task list, used for numbering
+     * @param positions 0-based positions of the tasks on the date, in ascending order
+     * @param targetDate the date being checked
      */
-    public static void printCheckedTasks(ArrayList<Task> tasks, String dateStr, LocalDateTime targetDate) {
-        System.out.println(BAR);
-        System.out.println("Tasks for " + formatDateForDisplay(targetDate) + ":");
+    public static void printCheckedTasks(List<Task> tasks, int[] positions, LocalDateTime targetDate) {
+        println(BAR);
+        println("Tasks for " + formatDateForDisplay(targetDate) + ":");
 
-        boolean foundTasks = false;
-        for (int i = 0; i < tasks.size(); i++) {
-            Task task = tasks.get(i);
-            boolean matches = false;
-
-            if (task.getType() == TaskType.EVENT) {
-                // Check if event starts or ends on the target date
-                LocalDateTime startDate = task.getStartDateTime();
-                LocalDateTime endDate = task.getEndDateTime();
-                if ((startDate != null && datesEqual(startDate, targetDate)) ||
-                        (endDate != null && datesEqual(endDate, targetDate))) {
-                    matches = true;
-                }
-            } else if (task.getType() == TaskType.DEADLINE) {
-                // Check if deadline is on the target date
-                LocalDateTime deadlineDate = task.getEndDateTime();
-                if (deadlineDate != null && datesEqual(deadlineDate, targetDate)) {
-                    matches = true;
-                }
-            }
+        for (int position : positions) {
+            printNumbered(position, tasks.get(position));
+        }
 
-            if (matches) {
-                System.out.println((i + 1) + "." + task.toString());
-                foundTasks = true;
-            }
+        if (positions.length == 0) {
+            println("No tasks found for this date.");
+        }
+        println(BAR);
+        endMessage();
+    }
+
+    /**
+     * Prints the tasks in a range of dates, e.g. for an agenda.
+     *
+     * @param tasks the full task list, used for numbering
+     * @param positions 0-based positions of the tasks in the range, in the order to show them
+     * @param from first date of the range
+     * @param to last date of the range
+     */
+    public static void printTasksBetween(List<Task> tasks, int[] positions, LocalDateTime from, LocalDateTime to) {
+        println(BAR);
+        println("Tasks from " + formatDateForDisplay(from) + " to " + formatDateForDisplay(to) + ":");
+
+        for (int position : positions) {
+            printNumbered(position, tasks.get(position));
         }
 
-        if (!foundTasks) {
-            System.out.println("No tasks found for this date.");
+        if (positions.length == 0) {
+            println("No tasks found for these dates.");
+        }
+        println(BAR);
+        endMessage();
+    }
+
+    /**
+     * Prints groups of overlapping events.
+     *
+     * @param tasks the full task list, used for numbering
+     * @param groups 0-based positions of the events in each group
+     */
+    public static void printConflicts(List<Task> tasks, List<int[]> groups) {
+        println(BAR);
+        if (groups.isEmpty()) {
+            println("No events overlap.");
+        } else {
+            println("Found " + groups.size() + " group(s) of overlapping events:");
+        }
+        for (int i = 0; i < groups.size(); i++) {
+            println("Group " + (i + 1) + ":");
+            for (int position : groups.get(i)) {
+                printNumbered(position, tasks.get(position));
+            }
         }
-        System.out.println(BAR);
+        println(BAR);
+        endMessage();
     }
 
     /**
      * Prints tasks that match the search keyword in their name.
+     *
+     * @param tasks the full task list, used for numbering
+     * @param positions 0-based positions of the matching tasks, in ascending order
+     * @param keyword the keyword that was searched for
      */
-    public static void printFoundTasks(ArrayList<Task> tasks, String keyword) {
-        System.out.println(BAR);
-        System.out.println("Tasks matching \"" + keyword + "\":");
+    public static void printFoundTasks(List<Task> tasks, int[] positions, String keyword) {
+        println(BAR);
+        println("Tasks matching \"" + keyword + "\":");
 
-        boolean foundTasks = false;
-        for (int i = 0; i < tasks.size(); i++) {
-            Task task = tasks.get(i);
-            if (task.getName().toLowerCase().contains(keyword.toLowerCase())) {
-                System.out.println((i + 1) + "." + task.toString());
-                foundTasks = true;
-            }
+        for (int position : positions) {
+            printNumbered(position, tasks.get(position));
+        }
+
+        if (positions.length == 0) {
+            println("No tasks found matching \"" + keyword + "\".");
         }
+        println(BAR);
+        endMessage();
+    }
+
+    /**
+     * Prints message when done tasks have been moved to the archive.
+     *
+     * @param count number of tasks archived
+     * @param totalTasks number of tasks left
+     */
+    public static void printArchived(int count, int totalTasks) {
+        println(BAR);
+        if (count == 0) {
+            println("No done tasks are old enough to archive.");
+        } else {
+            println("Archived " + count + (count == 1 ? " done task." : " done tasks."));
+            println("This can't be undone, but archive find can still look them up.");
+        }
+        println("Now you have " + totalTasks + " tasks in the list.");
+        println(BAR);
+        endMessage();
+    }
+
+    /**
+     * Starts the reply to an archive search, whose matches are printed with
+     * printArchiveMatch as they are read and ended by printArchiveMatchesEnd.
+     */
+    public static void printArchiveMatchesStart(String keyword) {
+        println(BAR);
+        println("Archived tasks matching \"" + keyword + "\":");
+    }
+
+    /**
+     * Prints one match of an archive search, with the ID the task had.
+     *
+     * @param number 1-based number of the match
+     */
+    public static void printArchiveMatch(int number, Task task) {
+        printNumbered(number - 1, task, task.getId());
+    }
+
+    /**
+     * Ends the reply to an archive search.
+     *
+     * @param count number of matches printed
+     */
+    public static void printArchiveMatchesEnd(int count, String keyword) {
+        if (count == 0) {
+            println("No archived tasks found matching \"" + keyword + "\".");
+        }
+        println(BAR);
+        endMessage();
+    }
 
-        if (!foundTasks) {
-            System.out.println("No tasks found matching \"" + keyword + "\".");
+    /**
+     * Prints the command latency summary.
+     *
+     * @param lines table rows from CommandStats.summary, or empty if nothing was timed
+     */
+    public static void printStats(List<String> lines) {
+        println(BAR);
+        if (lines.isEmpty()) {
+            println("No commands have been timed yet.");
+        } else {
+            println("Command latencies in microseconds:");
+            for (String line : lines) {
+                println(line);
+            }
         }
-        System.out.println(BAR);
+        println(BAR);
+        endMessage();
     }
 
     /**
      * Prints error message.
      */
     public static void printError(String message) {
-        System.out.println(BAR);
-        System.out.println(message);
-        System.out.println(BAR);
+        println(BAR);
+        println(message);
+        println(BAR);
+        endMessage();
     }
 
     /**
      * Prints bye message.
      */
     public static void printBye() {
-        System.out.println("Bye. Hope to see you again soon!");
-        System.out.println(BAR);
+        println("Bye. Hope to see you again soon!");
+        println(BAR);
+        endMessage();
+    }
+
+    /**
+     * Prints the throughput summary at the end of a batch run.
+     */
+    public static void printBatchSummary(int commands, int failed, int commits, long elapsedNanos) {
+        long millis = elapsedNanos / 1_000_000;
+        long perSecond = elapsedNanos == 0 ? 0 : commands * 1_000_000_000L / elapsedNanos;
+        println("Ran " + commands + " commands in " + millis + " ms (" + perSecond + " commands/s), "
+                + failed + " failed, " + commits + " commits.");
+        println(BAR);
+        endMessage();
     }
 
     /**
      * Prints loading error.
      */
     public static void printLoadingError(String message) {
-        System.out.println(BAR);
-        System.out.println("Error loading saved tasks: " + message);
-        System.out.println("Starting with empty task list.");
-        System.out.println(BAR);
+        println(BAR);
+        println("Error loading saved tasks: " + message);
+        println("Starting with empty task list.");
+        println(BAR);
+        endMessage();
     }
 
     /**
@@ -171,20 +534,6 @@ public class Ui {
         if (dateTime == null) {
             return "Unknown";
         }
-        return dateTime.format(DateTimeFormatter.ofPattern("dd MMM yyyy"));
-    }
-
-    /**
-     * Compares two LocalDateTime objects for date equality (ignores time).
-     * 
-     * @param date1 first date
-     * @param date2 second date
-     * @return true if dates are equal, false otherwise
-     */
-    private static boolean datesEqual(LocalDateTime date1, LocalDateTime date2) {
-        if (date1 == null || date2 == null) {
-            return false;
-        }
-        return date1.toLocalDate().equals(date2.toLocalDate());
+        return dateTime.format(Task.DISPLAY_DATE_FORMAT);
     }
 }
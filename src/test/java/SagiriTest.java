@@ -0,0 +1,107 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import sagiri.exception.SagiriException;
+import sagiri.storage.Journal;
+import sagiri.storage.Storage;
+import sagiri.task.TaskList;
+
+public class SagiriTest {
+    private static final String SCRIPT = "todo buy milk\ntodo read book\nmark 1\nfly to the moon\ntodo walk dog\n";
+
+    private Path dir;
+    private Path dataFile;
+    private PrintStream originalOut;
+    private ByteArrayOutputStream output;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("sagiri-batch");
+        dataFile = dir.resolve("Sagiri.dat");
+        originalOut = System.out;
+        output = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(output));
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        System.setOut(originalOut);
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    private int reloadedSize() {
+        TaskList loaded = new TaskList();
+        try {
+            Storage.loadTasks(loaded, dataFile);
+            Journal.replay(loaded, dataFile);
+        } catch (SagiriException e) {
+            throw new AssertionError(e);
+        }
+        return loaded.size();
+    }
+
+    /**
+     * Runs the script in batch mode, returning how many tasks had reached the
+     * disk before each line was read.
+     */
+    private List<Integer> runBatch(int commitEvery) throws IOException, SagiriException {
+        TaskList taskList = new TaskList();
+        Journal journal = new Journal(taskList, dataFile, Long.MAX_VALUE);
+        List<Integer> durableSizes = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new StringReader(SCRIPT)) {
+            @Override
+            public String readLine() throws IOException {
+                durableSizes.add(reloadedSize());
+                return super.readLine();
+            }
+        };
+        Sagiri.runBatch(taskList, journal, reader, commitEvery);
+        return durableSizes;
+    }
+
+    @Test
+    public void testBatchCommitsEveryNCommands() throws IOException, SagiriException {
+        List<Integer> durableSizes = runBatch(2);
+
+        // Commits land after the 2nd and 4th command, not after each one
+        assertEquals(List.of(0, 0, 2, 2, 2, 2), durableSizes);
+        assertEquals(3, reloadedSize());
+        assertTrue(output.toString().contains("Ran 5 commands"));
+        assertTrue(output.toString().contains("1 failed, 3 commits."));
+    }
+
+    @Test
+    public void testBatchWithCommitEveryOneIsDurablePerCommand() throws IOException, SagiriException {
+        List<Integer> durableSizes = runBatch(1);
+
+        assertEquals(List.of(0, 1, 2, 2, 2, 3), durableSizes);
+        // The failed command and the end of the batch have nothing to commit
+        assertTrue(output.toString().contains("1 failed, 4 commits."));
+    }
+
+    @Test
+    public void testBatchWithCommitEveryZeroCommitsOnlyAtEnd() throws IOException, SagiriException {
+        List<Integer> durableSizes = runBatch(0);
+
+        assertEquals(List.of(0, 0, 0, 0, 0, 0), durableSizes);
+        assertEquals(3, reloadedSize());
+        assertTrue(output.toString().contains("1 failed, 1 commits."));
+    }
+}
@@ -1,9 +1,12 @@
 package sagiri.command;
 
 import sagiri.exception.SagiriException;
+import sagiri.task.TaskFilter;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.Random;
+
 public class ParserTest {
 
     @Test
@@ -26,6 +29,73 @@ public class ParserTest {
         assertEquals(0, cmd.taskIndex);
     }
 
+    @Test
+    public void testParseTaskId() throws SagiriException {
+        Parser.ParsedCommand cmd = Parser.parse("delete #12");
+        assertEquals(Parser.CommandType.DELETE, cmd.type);
+        assertEquals(12, cmd.taskId);
+        assertTrue(Parser.parse("list --ids").showIds);
+        assertThrows(SagiriException.class, () -> Parser.parse("mark #x"));
+        assertThrows(SagiriException.class, () -> Parser.parse("list --bogus"));
+    }
+
+    @Test
+    public void testParseListPages() throws SagiriException {
+        assertEquals(0, Parser.parse("list").pageSize);
+        Parser.ParsedCommand page = Parser.parse("list 3");
+        assertEquals(40, page.taskIndex);
+        assertEquals(20, page.pageSize);
+        Parser.ParsedCommand sized = Parser.parse("list  2 50 --ids");
+        assertEquals(50, sized.taskIndex);
+        assertEquals(50, sized.pageSize);
+        assertTrue(sized.showIds);
+        assertEquals(99, Parser.parse("list --from 100").taskIndex);
+        assertEquals(Integer.MAX_VALUE, Parser.parse("list 2147483647 2147483647").taskIndex);
+        assertThrows(SagiriException.class, () -> Parser.parse("list 0"));
+        assertThrows(SagiriException.class, () -> Parser.parse("list 1 -5"));
+        assertThrows(SagiriException.class, () -> Parser.parse("list --from"));
+        assertThrows(SagiriException.class, () -> Parser.parse("list 2 --from 5"));
+        assertThrows(SagiriException.class, () -> Parser.parse("list 1 2 3"));
+    }
+
+    @Test
+    public void testParseDateRangeAndAgenda() throws SagiriException {
+        Parser.ParsedCommand range = Parser.parse("check 01-12-24  to 31-12-24 ");
+        assertEquals(Parser.CommandType.CHECK, range.type);
+        assertEquals("01-12-24", range.data);
+        assertEquals("31-12-24", range.endDate);
+        assertNull(Parser.parse("check 01-12-24").endDate);
+        assertThrows(SagiriException.class, () -> Parser.parse("check 31-12-24 to 01-12-24"));
+        assertThrows(SagiriException.class, () -> Parser.parse("check 01-12-24 to"));
+
+        assertEquals(Parser.CommandType.AGENDA, Parser.parse("agenda").type);
+        assertEquals(7, Parser.parse("agenda").days);
+        assertEquals(30, Parser.parse("agenda 30").days);
+        assertThrows(SagiriException.class, () -> Parser.parse("agenda 0"));
+        assertThrows(SagiriException.class, () -> Parser.parse("agendas"));
+        assertEquals(Parser.CommandType.CONFLICTS, Parser.parse("conflicts").type);
+    }
+
+    @Test
+    public void testParseArchive() throws SagiriException {
+        assertEquals(Parser.CommandType.ARCHIVE, Parser.parse("archive").type);
+        assertEquals(30, Parser.parse("archive").days);
+        assertEquals(0, Parser.parse("archive 0").days);
+        assertThrows(SagiriException.class, () -> Parser.parse("archive -1"));
+        assertThrows(SagiriException.class, () -> Parser.parse("archive soon"));
+
+        Parser.ParsedCommand find = Parser.parse("archive find  old essay ");
+        assertEquals(Parser.CommandType.ARCHIVE_FIND, find.type);
+        assertEquals("old essay", find.data);
+        assertThrows(SagiriException.class, () -> Parser.parse("archive find"));
+        assertThrows(SagiriException.class, () -> Parser.parse("archives"));
+    }
+
+    @Test
+    public void testParseStats() throws SagiriException {
+        assertEquals(Parser.CommandType.STATS, Parser.parse("stats").type);
+    }
+
     @Test
     public void testParseDelete() throws SagiriException {
         Parser.ParsedCommand cmd = Parser.parse("delete 5");
@@ -93,4 +163,75 @@ public class ParserTest {
     public void testParseFindEmptyKeyword() {
         assertThrows(SagiriException.class, () -> Parser.parse("find"));
     }
+
+    @Test
+    public void testParseMarkIgnoresExtraWords() throws SagiriException {
+        assertEquals(2, Parser.parse("mark 3 please").taskIndex);
+        assertThrows(SagiriException.class, () -> Parser.parse("mark  3"));
+        assertThrows(SagiriException.class, () -> Parser.parse("mark 99999999999"));
+    }
+
+    @Test
+    public void testParseCheckTrimsDate() throws SagiriException {
+        assertEquals("25-12-24", Parser.parse("check   25-12-24 ").data);
+        assertThrows(SagiriException.class, () -> Parser.parse("check 25/12/24"));
+        assertThrows(SagiriException.class, () -> Parser.parse("check 5-12-2024"));
+        assertThrows(SagiriException.class, () -> Parser.parse("check 31-11-24"));
+    }
+
+    @Test
+    public void testParseBulkForms() throws SagiriException {
+        Parser.ParsedCommand range = Parser.parse("mark 1-5000");
+        assertEquals(0, range.taskIndex);
+        assertEquals(4999, range.taskEndIndex);
+        assertTrue(range.isBulk());
+        assertEquals(TaskFilter.DONE, Parser.parse("delete done").filter);
+        assertEquals(TaskFilter.ALL, Parser.parse("unmark all extra").filter);
+        assertFalse(Parser.parse("delete 3").isBulk());
+        assertThrows(SagiriException.class, () -> Parser.parse("delete 5-3"));
+        assertThrows(SagiriException.class, () -> Parser.parse("delete 3-"));
+        assertThrows(SagiriException.class, () -> Parser.parse("delete Done"));
+    }
+
+    @Test
+    public void testParseAgreesWithSplitParsing() {
+        String[] words = {"mark ", "unmark ", "delete "};
+        String[] pieces = {" ", "  ", "-", "+", "0", "1", "3", "12", "2147483647", "2147483648", "a", "\t", "x y"};
+        Random random = new Random(17);
+        for (int n = 0; n < 20000; n++) {
+            StringBuilder input = new StringBuilder(words[random.nextInt(words.length)]);
+            int count = random.nextInt(7);
+            for (int i = 0; i < count; i++) {
+                input.append(pieces[random.nextInt(pieces.length)]);
+            }
+            String line = input.toString();
+            String actual;
+            try {
+                Parser.ParsedCommand cmd = Parser.parse(line);
+                actual = cmd.taskIndex + (cmd.isBulk() ? ".." + cmd.taskEndIndex : "");
+            } catch (SagiriException e) {
+                actual = "error";
+            }
+            assertEquals(parseWithSplit(line), actual, line);
+        }
+    }
+
+    /**
+     * Parses the task number of a mark, unmark or delete command with
+     * String.split and Integer.parseInt, as Parser used to, along with the
+     * ranges it now also accepts.
+     */
+    private static String parseWithSplit(String input) {
+        try {
+            String argument = input.split(" ")[1];
+            if (argument.matches("[0-9]+-[0-9]+")) {
+                int from = Integer.parseInt(argument.substring(0, argument.indexOf('-'))) - 1;
+                int to = Integer.parseInt(argument.substring(argument.indexOf('-') + 1)) - 1;
+                return from > to ? "error" : from + (from < to ? ".." + to : "");
+            }
+            return String.valueOf(Integer.parseInt(argument) - 1);
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            return "error";
+        }
+    }
 }
@@ -0,0 +1,54 @@
+package sagiri.stats;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import sagiri.command.Parser.CommandType;
+
+public class HistogramTest {
+
+    @Test
+    public void testBucketsCoverValuesInOrder() {
+        long previousHigh = -1;
+        for (long value : new long[] {0, 1, 63, 64, 65, 127, 128, 1000, 123_456, 987_654_321L}) {
+            int index = Histogram.indexOf(value);
+            long high = Histogram.highestValueIn(index);
+            assertTrue(high >= value);
+            assertTrue(high <= value + value / 32);
+            assertTrue(high >= previousHigh);
+            previousHigh = high;
+        }
+    }
+
+    @Test
+    public void testPercentilesWithinResolution() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(10_000_000, histogram.getMax());
+        assertEquals(5_000_500, histogram.getMean());
+        assertEquals(5_000_000, histogram.getPercentile(0.50), 5_000_000 / 32.0);
+        assertEquals(9_900_000, histogram.getPercentile(0.99), 9_900_000 / 32.0);
+        assertEquals(10_000_000, histogram.getPercentile(1.0));
+        assertEquals(0, new Histogram().getPercentile(0.5));
+    }
+
+    @Test
+    public void testSummaryListsTimedPhases() {
+        CommandStats.reset();
+        assertTrue(CommandStats.summary().isEmpty());
+
+        long start = CommandStats.start();
+        CommandStats.lap(CommandType.TODO, CommandStats.Phase.EXECUTE, start - 2000);
+        List<String> lines = CommandStats.summary();
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).startsWith("command"));
+        assertTrue(lines.get(1).startsWith("todo      execute         1"));
+        CommandStats.reset();
+    }
+}
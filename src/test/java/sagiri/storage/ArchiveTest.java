@@ -0,0 +1,74 @@
+package sagiri.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import sagiri.exception.SagiriException;
+import sagiri.task.Task;
+import sagiri.task.TaskList;
+
+public class ArchiveTest {
+    private Path dir;
+    private Path archiveFile;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("sagiri-archive");
+        archiveFile = dir.resolve("data").resolve("Sagiri.archive.gz");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testFindReadsEveryAppendedBatch() throws SagiriException {
+        TaskList taskList = new TaskList();
+        taskList.addTodo("Read essay");
+        taskList.addDeadline("Submit Essay /by 01-12-24");
+        taskList.addEvent("Camp /from 02-12-24 /to 04-12-24");
+        taskList.markTaskDone(1);
+        List<Task> tasks = taskList.getTasks();
+        Archive.append(List.of(tasks.get(0), tasks.get(1)), archiveFile);
+        Archive.append(List.of(tasks.get(2)), archiveFile);
+
+        List<Task> found = new ArrayList<>();
+        assertEquals(2, Archive.find(archiveFile, "ESSAY", found::add));
+        assertEquals("[T][ ] Read essay", found.get(0).toString());
+        assertEquals("[D][X] Submit Essay (by: 01 Dec 2024)", found.get(1).toString());
+        assertEquals(2, found.get(1).getId());
+        assertEquals(1, Archive.find(archiveFile, "camp", task -> { }));
+        // Every stored line holds "null" for a missing date, but no name does
+        assertEquals(0, Archive.find(archiveFile, "null", task -> { }));
+    }
+
+    @Test
+    public void testFindSkipsTasksArchivedTwice() throws SagiriException {
+        TaskList taskList = new TaskList();
+        taskList.addTodo("Read essay");
+        Archive.append(taskList.getTasks(), archiveFile);
+        Archive.append(taskList.getTasks(), archiveFile);
+        assertEquals(1, Archive.find(archiveFile, "essay", task -> { }));
+    }
+
+    @Test
+    public void testFindWithoutArchiveMatchesNothing() throws SagiriException {
+        assertEquals(0, Archive.find(archiveFile, "essay", task -> fail()));
+        Archive.append(List.of(), archiveFile);
+        assertFalse(Files.exists(archiveFile));
+    }
+}
@@ -0,0 +1,80 @@
+package sagiri.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import sagiri.exception.SagiriException;
+import sagiri.task.TaskList;
+
+public class BinaryStorageTest {
+    private static final String TEXT = "# next-id 12\n"
+            + "T | 0 | read book | null | null | 1\n"
+            + "E | 1 | attend meeting | 25-12-24 | 26-12-24 | 4\n"
+            + "D | 0 | submit r\u00e9sum\u00e9 | null | 31-12-24 | 9\n";
+
+    private Path dir;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("sagiri-binary");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testRoundTripThroughBinary() throws SagiriException, IOException {
+        Path text = dir.resolve("Sagiri.dat");
+        Path binary = dir.resolve("Sagiri.bin");
+        Path back = dir.resolve("Back.dat");
+        Files.write(text, TEXT.getBytes("UTF-8"));
+
+        BinaryStorage.convertToBinary(text, binary);
+        assertTrue(Files.size(binary) < Files.size(text));
+        BinaryStorage.convertToText(binary, back);
+        assertEquals(TEXT, new String(Files.readAllBytes(back), "UTF-8"));
+
+        TaskList taskList = new TaskList();
+        Storage.loadTasks(taskList, binary);
+        assertEquals(3, taskList.size());
+        assertEquals("[E][X] attend meeting (from: 25 Dec 2024 to: 26 Dec 2024)",
+                taskList.getTasks().get(1).toString());
+        assertEquals(2, taskList.positionOf(9));
+        assertEquals(12, taskList.getNextId());
+    }
+
+    @Test
+    public void testTruncatedFileIsRejected() throws SagiriException, IOException {
+        Path text = dir.resolve("Sagiri.dat");
+        Path binary = dir.resolve("Sagiri.bin");
+        Files.write(text, TEXT.getBytes("UTF-8"));
+        BinaryStorage.convertToBinary(text, binary);
+
+        byte[] bytes = Files.readAllBytes(binary);
+        Files.write(binary, Arrays.copyOf(bytes, bytes.length - 4));
+        SagiriException e = assertThrows(SagiriException.class,
+                () -> BinaryStorage.loadTasks(new TaskList(), binary));
+        assertTrue(e.getMessage().contains("record 3"));
+    }
+
+    @Test
+    public void testWrongMagicIsRejected() throws IOException {
+        Path binary = dir.resolve("Sagiri.bin");
+        Files.write(binary, TEXT.getBytes("UTF-8"));
+        assertThrows(SagiriException.class, () -> BinaryStorage.loadTasks(new TaskList(), binary));
+    }
+}
@@ -0,0 +1,263 @@
+package sagiri.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import sagiri.exception.SagiriException;
+import sagiri.task.TaskFilter;
+import sagiri.task.TaskList;
+
+public class JournalTest {
+    private Path dir;
+    private Path dataFile;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("sagiri-journal");
+        dataFile = dir.resolve("Sagiri.dat");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    private TaskList reload() throws SagiriException {
+        TaskList loaded = new TaskList();
+        Storage.loadTasks(loaded, dataFile);
+        Journal.replay(loaded, dataFile);
+        return loaded;
+    }
+
+    @Test
+    public void testReplayRestoresMutations() throws SagiriException {
+        TaskList taskList = new TaskList();
+        Journal journal = new Journal(taskList, dataFile, Long.MAX_VALUE);
+        journal.logAdd(taskList.addTodo("buy milk"));
+        journal.logAdd(taskList.addDeadline("submit report /by 31-12-24"));
+        journal.logAdd(taskList.addEvent("meeting /from 25-12-24 /to 26-12-24"));
+        taskList.markTaskDone(1);
+        journal.logMark(1);
+        taskList.deleteTask(0);
+        journal.logDelete(0);
+        journal.close();
+
+        assertFalse(Files.exists(dataFile));
+        TaskList loaded = reload();
+        assertEquals(2, loaded.size());
+        assertEquals("[D][X] submit report (by: 31 Dec 2024)", loaded.getTasks().get(0).toString());
+        assertEquals("[E][ ] meeting (from: 25 Dec 2024 to: 26 Dec 2024)", loaded.getTasks().get(1).toString());
+    }
+
+    @Test
+    public void testReplayRestoresBulkChanges() throws SagiriException {
+        TaskList taskList = new TaskList();
+        Journal journal = new Journal(taskList, dataFile, Long.MAX_VALUE);
+        for (int i = 0; i < 20; i++) {
+            journal.logAdd(taskList.addTodo("task " + i));
+        }
+        BitSet marked = taskList.select(2, 9);
+        marked.set(15);
+        taskList.markTasks(marked, true);
+        journal.logMark(marked);
+        BitSet deleted = taskList.select(TaskFilter.DONE);
+        deleted.set(0);
+        taskList.deleteTasks(deleted);
+        journal.logDelete(deleted);
+        journal.close();
+
+        TaskList loaded = reload();
+        assertEquals(taskList.size(), loaded.size());
+        for (int i = 0; i < loaded.size(); i++) {
+            assertEquals(taskList.getTasks().get(i).toString(), loaded.getTasks().get(i).toString());
+        }
+        assertEquals("task 1", loaded.getTasks().get(0).getName());
+        assertEquals("task 10", loaded.getTasks().get(1).getName());
+    }
+
+    @Test
+    public void testCompactionFoldsJournalIntoSnapshot() throws SagiriException, IOException {
+        TaskList taskList = new TaskList();
+        Journal journal = new Journal(taskList, dataFile, 64);
+        for (int i = 0; i < 10; i++) {
+            journal.logAdd(taskList.addTodo("task " + i));
+        }
+        taskList.markTaskDone(3);
+        journal.logMark(3);
+        journal.close();
+
+        assertTrue(Files.exists(dataFile));
+        assertFalse(Files.exists(dir.resolve("Sagiri.journal.old")));
+
+        TaskList loaded = reload();
+        assertEquals(10, loaded.size());
+        assertTrue(loaded.getTasks().get(3).isDone());
+        assertEquals("task 9", loaded.getTasks().get(9).getName());
+    }
+
+    @Test
+    public void testJournalInSnapshotIsNotReplayedAgain() throws SagiriException, IOException {
+        TaskList taskList = new TaskList();
+        Journal journal = new Journal(taskList, dataFile, Long.MAX_VALUE);
+        for (int i = 0; i < 5; i++) {
+            journal.logAdd(taskList.addTodo("task " + i));
+        }
+        taskList.deleteTask(0);
+        journal.logDelete(0);
+        journal.close();
+
+        // As if the process died after compaction renamed the snapshot into
+        // place but before it deleted the rotated journal
+        Path journalFile = dir.resolve("Sagiri.journal");
+        assertTrue(Files.readAllLines(journalFile).get(0).startsWith("G | 1"));
+        Files.move(journalFile, dir.resolve("Sagiri.journal.old"));
+        Storage.writeSnapshot(taskList.snapshot(), taskList.getNextId(), 1, dataFile);
+
+        TaskList loaded = reload();
+        assertEquals(4, loaded.size());
+        assertEquals("task 1", loaded.getTasks().get(0).getName());
+    }
+
+    @Test
+    public void testLeftoverRotatedJournalIsFoldedOnOpen() throws SagiriException, IOException {
+        TaskList taskList = new TaskList();
+        Journal journal = new Journal(taskList, dataFile, Long.MAX_VALUE);
+        for (int i = 0; i < 5; i++) {
+            journal.logAdd(taskList.addTodo("task " + i));
+        }
+        journal.close();
+        // As if writing the snapshot failed after the journal was rotated
+        Files.move(dir.resolve("Sagiri.journal"), dir.resolve("Sagiri.journal.old"));
+
+        TaskList loaded = reload();
+        journal = new Journal(loaded, dataFile, 64);
+        assertFalse(Files.exists(dir.resolve("Sagiri.journal.old")));
+        for (int i = 5; i < 20; i++) {
+            journal.logAdd(loaded.addTodo("task " + i));
+        }
+        journal.close();
+        assertFalse(Files.exists(dir.resolve("Sagiri.journal.old")));
+
+        TaskList reloaded = reload();
+        assertEquals(20, reloaded.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals("task " + i, reloaded.getTasks().get(i).getName());
+        }
+    }
+
+    @Test
+    public void testCompactionThresholdCountsUtf8Bytes() throws SagiriException {
+        TaskList taskList = new TaskList();
+        // The record is 60 characters but 90 bytes long
+        Journal journal = new Journal(taskList, dataFile, 80);
+        journal.logAdd(taskList.addTodo("\u00e9".repeat(30)));
+        journal.close();
+        assertTrue(Files.exists(dataFile));
+        assertEquals(1, reload().size());
+    }
+
+    @Test
+    public void testExitDurabilityDefersWritesUntilCommit() throws SagiriException {
+        TaskList taskList = new TaskList();
+        Journal journal = new Journal(taskList, dataFile, Long.MAX_VALUE, Durability.EXIT, 0);
+        journal.logAdd(taskList.addTodo("buy milk"));
+        journal.logAdd(taskList.addTodo("read book"));
+        assertEquals(0, reload().size());
+
+        journal.commit();
+        assertEquals(2, reload().size());
+        journal.logDelete(0);
+        journal.close();
+        assertEquals("read book", reload().getTasks().get(0).getName());
+    }
+
+    @Test
+    public void testIntervalDurabilityFlushesInBackground() throws SagiriException, InterruptedException {
+        TaskList taskList = new TaskList();
+        Journal journal = new Journal(taskList, dataFile, Long.MAX_VALUE, Durability.INTERVAL, 10);
+        for (int i = 0; i < 100; i++) {
+            journal.logAdd(taskList.addTodo("task " + i));
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (reload().size() < 100 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(100, reload().size());
+        journal.close();
+    }
+
+    @Test
+    public void testReplayRestoresUndoneChanges() throws SagiriException {
+        TaskList taskList = new TaskList();
+        taskList.enableUndo(TaskList.DEFAULT_UNDO_BUDGET_BYTES);
+        Journal journal = new Journal(taskList, dataFile, Long.MAX_VALUE);
+        for (int i = 0; i < 10; i++) {
+            journal.logAdd(taskList.addTodo("task " + i));
+        }
+        taskList.markTaskDone(4);
+        journal.logMark(4);
+        BitSet deleted = taskList.select(2, 6);
+        deleted.set(8);
+        taskList.deleteTasks(deleted);
+        journal.logDelete(deleted);
+        journal.logChange(taskList.undo());
+        journal.logChange(taskList.undo());
+        journal.logChange(taskList.redo());
+        journal.close();
+
+        TaskList loaded = reload();
+        assertEquals(10, loaded.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(taskList.getTasks().get(i).toString(), loaded.getTasks().get(i).toString());
+            assertEquals(i + 1, loaded.getTasks().get(i).getId());
+        }
+        assertTrue(loaded.getTasks().get(4).isDone());
+    }
+
+    @Test
+    public void testUndoneDeleteAcrossCompactionThresholdReplaysOnce() throws SagiriException, IOException {
+        String name = "x".repeat(100);
+        // Cross the threshold at every record of the undo in turn
+        for (int threshold = 600; threshold <= 1400; threshold += 40) {
+            Path file = Files.createDirectory(dir.resolve("t" + threshold)).resolve("Sagiri.dat");
+            TaskList taskList = new TaskList();
+            taskList.enableUndo(TaskList.DEFAULT_UNDO_BUDGET_BYTES);
+            Journal journal = new Journal(taskList, file, threshold);
+            for (int i = 0; i < 6; i++) {
+                journal.logAdd(taskList.addTodo(name + i));
+            }
+            BitSet deleted = taskList.select(0, 3);
+            taskList.deleteTasks(deleted);
+            journal.logDelete(deleted);
+            journal.logChange(taskList.undo());
+            journal.close();
+
+            TaskList loaded = new TaskList();
+            Storage.loadTasks(loaded, file);
+            Journal.replay(loaded, file);
+            assertEquals(6, loaded.size(), "threshold " + threshold);
+            for (int i = 0; i < 6; i++) {
+                assertEquals(i + 1, loaded.getTasks().get(i).getId());
+            }
+        }
+    }
+
+    @Test
+    public void testCorruptedRecordReportsLine() throws IOException {
+        Files.write(dir.resolve("Sagiri.journal"), "A | T | 0 | read | null | null\nX | 1\n".getBytes());
+        SagiriException e = assertThrows(SagiriException.class, this::reload);
+        assertTrue(e.getMessage().contains("at line 2"));
+    }
+}
@@ -0,0 +1,105 @@
+package sagiri.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import sagiri.exception.SagiriException;
+import sagiri.task.TaskList;
+
+public class ParallelLoaderTest {
+    private Path dir;
+    private Path dataFile;
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("sagiri-parallel");
+        dataFile = dir.resolve("Sagiri.dat");
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    private String records(int count, String lineEnd) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i % 3 == 0) {
+                sb.append("T | 0 | read chapter ").append(i).append(" | null | null");
+            } else if (i % 3 == 1) {
+                sb.append("E | 1 | meeting ").append(i).append(" | 25-12-24 | 26-12-24");
+            } else {
+                sb.append("D | 0 | report ").append(i).append(" | null | 31-12-24");
+            }
+            sb.append(i % 50 == 0 ? lineEnd + lineEnd : lineEnd);
+        }
+        return sb.toString();
+    }
+
+    private void assertSameAsSequential() throws SagiriException {
+        TaskList sequential = new TaskList();
+        Storage.loadTasks(sequential, dataFile);
+        TaskList parallel = new TaskList();
+        ParallelLoader.loadTasks(parallel, dataFile, pool, 256);
+
+        assertEquals(sequential.size(), parallel.size());
+        for (int i = 0; i < sequential.size(); i++) {
+            assertEquals(sequential.getTasks().get(i).toString(), parallel.getTasks().get(i).toString());
+        }
+    }
+
+    @Test
+    public void testMatchesSequentialLoad() throws SagiriException, IOException {
+        Files.write(dataFile, records(2000, "\n").getBytes());
+        assertSameAsSequential();
+    }
+
+    @Test
+    public void testMatchesSequentialLoadWithCrlf() throws SagiriException, IOException {
+        Files.write(dataFile, records(2000, "\r\n").getBytes());
+        assertSameAsSequential();
+    }
+
+    @Test
+    public void testCorruptionReportsGlobalLineNumber() throws IOException {
+        String text = records(2000, "\n");
+        int cut = text.indexOf("D | 0 | report 1502");
+        Files.write(dataFile, (text.substring(0, cut) + "broken\n" + text.substring(cut)).getBytes());
+
+        SagiriException sequential = assertThrows(SagiriException.class,
+                () -> Storage.loadTasks(new TaskList(), dataFile));
+        SagiriException parallel = assertThrows(SagiriException.class,
+                () -> ParallelLoader.loadTasks(new TaskList(), dataFile, pool, 256));
+        assertEquals(sequential.getMessage(), parallel.getMessage());
+    }
+
+    @Test
+    public void testOutOfOrderIdReportsGlobalLineNumber() throws IOException {
+        String text = records(2000, "\n");
+        int cut = text.indexOf("D | 0 | report 1502");
+        String lines = "T | 0 | has id | null | null | 9000\nT | 0 | lower id | null | null | 5\n";
+        Files.write(dataFile, (text.substring(0, cut) + lines + text.substring(cut)).getBytes());
+
+        SagiriException sequential = assertThrows(SagiriException.class,
+                () -> Storage.loadTasks(new TaskList(), dataFile));
+        SagiriException parallel = assertThrows(SagiriException.class,
+                () -> ParallelLoader.loadTasks(new TaskList(), dataFile, pool, 256));
+        assertTrue(sequential.getMessage().startsWith("Corrupted data file at line "));
+        assertEquals(sequential.getMessage(), parallel.getMessage());
+    }
+}
@@ -0,0 +1,155 @@
+package sagiri.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import sagiri.exception.SagiriException;
+import sagiri.task.TaskList;
+
+public class StorageTest {
+    private Path dir;
+    private Path dataFile;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("sagiri-storage");
+        dataFile = dir.resolve("Sagiri.dat");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    private void writeTasks(int count) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(dataFile)) {
+            for (int i = 0; i < count; i++) {
+                if (i % 3 == 0) {
+                    writer.write("T | 0 | read chapter " + i + " | null | null\n");
+                } else if (i % 3 == 1) {
+                    writer.write("E | 1 | meeting " + i + " | 25-12-24 | 26-12-24\n");
+                } else {
+                    writer.write("D | 0 | report " + i + " | null | 31-12-24\n");
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLoadSkipsBlankLines() throws SagiriException, IOException {
+        Files.write(dataFile, "T | 0 | read book | null | null\n\n   \nD | 1 | submit | null | 31-12-24\n".getBytes());
+        TaskList taskList = new TaskList();
+        Storage.loadTasks(taskList, dataFile);
+        assertEquals(2, taskList.size());
+        assertEquals("[D][X] submit (by: 31 Dec 2024)", taskList.getTasks().get(1).toString());
+    }
+
+    @Test
+    public void testCorruptedLineReportsLineNumber() throws IOException {
+        Files.write(dataFile, "T | 0 | read book | null | null\n\nT | 0 | broken\n".getBytes());
+        SagiriException e = assertThrows(SagiriException.class,
+                () -> Storage.loadTasks(new TaskList(), dataFile));
+        assertEquals("Corrupted data file at line 3: Expected 5 parts separated by ' | ', found 3", e.getMessage());
+    }
+
+    @Test
+    public void testInvalidTypeReportsLineNumber() throws IOException {
+        Files.write(dataFile, "X | 0 | read book | null | null\n".getBytes());
+        SagiriException e = assertThrows(SagiriException.class,
+                () -> Storage.loadTasks(new TaskList(), dataFile));
+        assertEquals("Corrupted data file at line 1: Invalid task type 'X'. Expected T, E, or D", e.getMessage());
+    }
+
+    @Test
+    public void testLoadKeepsIdsAndNumbersOldLines() throws SagiriException, IOException {
+        Files.write(dataFile, "T | 0 | read book | null | null | 4\nT | 0 | buy milk | null | null\n".getBytes());
+        TaskList taskList = new TaskList();
+        Storage.loadTasks(taskList, dataFile);
+        assertEquals(4, taskList.getTasks().get(0).getId());
+        assertEquals(5, taskList.getTasks().get(1).getId());
+    }
+
+    @Test
+    public void testOutOfOrderIdsAreRejected() throws IOException {
+        Files.write(dataFile, "T | 0 | read book | null | null | 7\nT | 0 | buy milk | null | null | 3\n".getBytes());
+        assertThrows(SagiriException.class, () -> Storage.loadTasks(new TaskList(), dataFile));
+    }
+
+    @Test
+    public void testIdsOfDeletedTasksStayTakenAfterSave() throws SagiriException, IOException {
+        TaskList taskList = new TaskList();
+        for (int i = 0; i < 7; i++) {
+            taskList.addTodo("task " + i);
+        }
+        taskList.deleteTasks(taskList.select(5, 6));
+        Storage.writeSnapshot(taskList.snapshot(), taskList.getNextId(), 0, dataFile);
+
+        TaskList loaded = new TaskList();
+        Storage.loadTasks(loaded, dataFile);
+        assertEquals(5, loaded.size());
+        assertEquals(8, loaded.addTodo("after restart").getId());
+
+        Files.write(dataFile, "# next-id x\n".getBytes());
+        SagiriException e = assertThrows(SagiriException.class, () -> Storage.loadTasks(new TaskList(), dataFile));
+        assertTrue(e.getMessage().startsWith("Corrupted data file at line 1"));
+    }
+
+    @Test
+    public void testLoadStaysWithinAllocationBudget() throws SagiriException, IOException {
+        int count = 20000;
+        writeTasks(count);
+
+        // Warm up so class loading and JIT do not count against the budget
+        Storage.loadTasks(new TaskList(), dataFile);
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        TaskList taskList = new TaskList();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        Storage.loadTasks(taskList, dataFile);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertEquals(count, taskList.size());
+        assertTrue(allocated / count < 1024, "allocated " + (allocated / count) + " bytes per task");
+    }
+
+    @Test
+    public void testSaveEmitsFlightRecorderEvent() throws IOException, SagiriException {
+        TaskList taskList = new TaskList();
+        taskList.addTodo("buy milk");
+        taskList.addDeadline("report /by 31-12-24");
+
+        Path recordingFile = dir.resolve("save.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("sagiri.Save");
+            recording.start();
+            Storage.writeSnapshot(taskList.snapshot(), dataFile);
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+        assertEquals(1, events.size());
+        assertEquals(2, events.get(0).getInt("records"));
+        assertEquals(Files.size(dataFile), events.get(0).getLong("bytes"));
+    }
+}
@@ -0,0 +1,97 @@
+package sagiri.task;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import sagiri.exception.SagiriException;
+
+public class ColumnarTaskStoreTest {
+
+    private static void fill(TaskList taskList) throws SagiriException {
+        for (int i = 0; i < 300; i++) {
+            if (i % 3 == 0) {
+                taskList.addTodo("read chapter " + i);
+            } else if (i % 3 == 1) {
+                taskList.addEvent("caf\u00e9 meeting " + i + " /from 25-12-24 /to 26-12-24");
+            } else {
+                taskList.addDeadline("report " + i + " /by 31-12-24");
+            }
+        }
+        for (int i = 0; i < 300; i += 7) {
+            taskList.markTaskDone(i);
+        }
+        for (int i = 0; i < 120; i++) {
+            taskList.deleteTask(i);
+        }
+        taskList.markTaskNotDone(7);
+        taskList.addTodo("added after deletes");
+    }
+
+    @Test
+    public void testBehavesLikeArrayStore() throws SagiriException {
+        TaskList expected = new TaskList();
+        TaskList columnar = new TaskList(new ColumnarTaskStore());
+        fill(expected);
+        fill(columnar);
+
+        assertEquals(expected.size(), columnar.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getTasks().get(i).toString(), columnar.getTasks().get(i).toString());
+            assertEquals(expected.getTasks().get(i).isDone(), columnar.getTasks().get(i).isDone());
+        }
+        assertArrayEquals(expected.findTasksContaining("caf\u00e9 m"), columnar.findTasksContaining("caf\u00e9 m"));
+        assertArrayEquals(expected.findTasksOn(TaskList.parseDate("31-12-24")),
+                columnar.findTasksOn(TaskList.parseDate("31-12-24")));
+    }
+
+    @Test
+    public void testUndoAndRedoKeepNamesIntact() throws SagiriException {
+        for (int seed = 0; seed < 200; seed++) {
+            TaskList expected = new TaskList();
+            TaskList columnar = new TaskList(new ColumnarTaskStore());
+            expected.enableUndo(TaskList.DEFAULT_UNDO_BUDGET_BYTES);
+            columnar.enableUndo(TaskList.DEFAULT_UNDO_BUDGET_BYTES);
+            Random random = new Random(seed);
+            for (int step = 0; step < 100; step++) {
+                int size = expected.size();
+                int op = random.nextInt(4);
+                if (op == 0 || size == 0) {
+                    String name = "n" + step + "-" + "z".repeat(random.nextInt(40));
+                    expected.addTodo(name);
+                    columnar.addTodo(name);
+                } else if (op == 1) {
+                    int from = random.nextInt(size);
+                    int to = from + random.nextInt(size - from);
+                    expected.deleteTasks(expected.select(from, to));
+                    columnar.deleteTasks(columnar.select(from, to));
+                } else if (op == 2) {
+                    expected.undo();
+                    columnar.undo();
+                } else {
+                    expected.redo();
+                    columnar.redo();
+                }
+                assertEquals(expected.size(), columnar.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    assertEquals(expected.getTasks().get(i).toString(), columnar.getTasks().get(i).toString(),
+                            "seed " + seed + ", step " + step);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testGetReturnsDetachedViews() throws SagiriException {
+        TaskList taskList = new TaskList(new ColumnarTaskStore());
+        taskList.addTodo("buy milk");
+        taskList.getTasks().get(0).markAsDone();
+        assertFalse(taskList.getTasks().get(0).isDone());
+
+        taskList.markTaskDone(0);
+        assertTrue(taskList.getTasks().get(0).isDone());
+        assertThrows(UnsupportedOperationException.class, () -> taskList.getTasks().add(new Task("x")));
+    }
+}
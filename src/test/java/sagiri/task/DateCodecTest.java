@@ -0,0 +1,45 @@
+package sagiri.task;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+public class DateCodecTest {
+
+    @Test
+    public void testDecodeAgreesWithLocalDate() {
+        for (int year = 0; year <= 99; year++) {
+            for (int month = 0; month <= 13; month++) {
+                for (int day = 0; day <= 32; day++) {
+                    String text = String.format("%02d-%02d-%02d", day, month, year);
+                    int expected;
+                    try {
+                        expected = (int) LocalDate.of(2000 + year, month, day).toEpochDay();
+                    } catch (DateTimeException e) {
+                        expected = DateCodec.INVALID;
+                    }
+                    assertEquals(expected, DateCodec.decode(text), text);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDecodeRejectsOtherForms() {
+        for (String text : new String[] {null, "", "5-12-24", "25-12-2024", "25/12/24", "+5-12-24", "2a-12-24",
+            "25-12-2-", " 25-12-24"}) {
+            assertEquals(DateCodec.INVALID, DateCodec.decode(text), text);
+        }
+        assertEquals(DateCodec.decode("25-12-24"), DateCodec.decode("on 25-12-24!", 3, 11));
+    }
+
+    @Test
+    public void testSameDayReusesDateTime() {
+        assertSame(DateCodec.parse("25-12-24"), DateCodec.parse("25-12-24"));
+        assertEquals(LocalDate.of(2024, 12, 25).atStartOfDay(), DateCodec.parse("25-12-24"));
+        assertNull(DateCodec.parse("31-02-24"));
+    }
+}
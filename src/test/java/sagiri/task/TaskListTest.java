@@ -0,0 +1,386 @@
+package sagiri.task;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import sagiri.exception.SagiriException;
+
+public class TaskListTest {
+
+    @Test
+    public void testFindTasksOnMatchesEventEndpointsAndDeadlines() throws SagiriException {
+        TaskList taskList = new TaskList();
+        taskList.addTodo("read book");
+        taskList.addEvent("meeting /from 25-12-24 /to 25-12-24");
+        taskList.addDeadline("report /by 26-12-24");
+        taskList.addEvent("trip /from 24-12-24 /to 26-12-24");
+        taskList.addEvent("camp /from 20-12-24 /to 30-12-24");
+
+        assertArrayEquals(new int[] {1}, taskList.findTasksOn(TaskList.parseDate("25-12-24")));
+        assertArrayEquals(new int[] {2, 3}, taskList.findTasksOn(TaskList.parseDate("26-12-24")));
+        assertArrayEquals(new int[0], taskList.findTasksOn(TaskList.parseDate("01-01-25")));
+    }
+
+    @Test
+    public void testFindTasksOnFollowsDeletes() throws SagiriException {
+        TaskList taskList = new TaskList();
+        taskList.addDeadline("first /by 26-12-24");
+        taskList.addTodo("read book");
+        taskList.addDeadline("second /by 26-12-24");
+        taskList.addEvent("party /from 26-12-24 /to 27-12-24");
+
+        taskList.deleteTask(0);
+        assertArrayEquals(new int[] {1, 2}, taskList.findTasksOn(TaskList.parseDate("26-12-24")));
+
+        taskList.deleteTask(1);
+        assertArrayEquals(new int[] {1}, taskList.findTasksOn(TaskList.parseDate("26-12-24")));
+        assertArrayEquals(new int[] {1}, taskList.findTasksOn(TaskList.parseDate("27-12-24")));
+
+        taskList.addDeadline("third /by 26-12-24");
+        assertArrayEquals(new int[] {1, 2}, taskList.findTasksOn(TaskList.parseDate("26-12-24")));
+    }
+
+    @Test
+    public void testFindTasksBetweenIncludesSpanningEvents() throws SagiriException {
+        TaskList taskList = new TaskList();
+        taskList.addEvent("camp /from 20-12-24 /to 30-12-24");
+        taskList.addTodo("read book");
+        taskList.addDeadline("report /by 26-12-24");
+        taskList.addEvent("trip /from 01-12-24 /to 05-12-24");
+        taskList.addDeadline("essay /by 24-12-24");
+
+        assertArrayEquals(new int[] {0},
+                taskList.findTasksBetween(TaskList.parseDate("25-12-24"), TaskList.parseDate("25-12-24")));
+        assertArrayEquals(new int[] {3, 0, 4},
+                taskList.findTasksBetween(TaskList.parseDate("05-12-24"), TaskList.parseDate("24-12-24")));
+
+        taskList.deleteTask(0);
+        taskList.addEvent("party /from 31-12-24 /to 01-01-25");
+        assertArrayEquals(new int[] {3, 1, 4},
+                taskList.findTasksBetween(TaskList.parseDate("24-12-24"), TaskList.parseDate("31-12-24")));
+    }
+
+    @Test
+    public void testFindTasksBetweenMatchesScan() throws SagiriException {
+        Random random = new Random(42);
+        TaskList taskList = new TaskList();
+        for (int round = 0; round < 3000; round++) {
+            int day = 1 + random.nextInt(28);
+            if (random.nextInt(4) == 0 && taskList.size() > 0) {
+                taskList.deleteTask(random.nextInt(taskList.size()));
+            } else if (random.nextBoolean()) {
+                taskList.addDeadline("d /by " + String.format("%02d-12-24", day));
+            } else {
+                int last = Math.min(28, day + random.nextInt(10));
+                taskList.addEvent("e /from " + String.format("%02d-12-24 /to %02d-12-24", day, last));
+            }
+            if (round % 50 == 0) {
+                int from = 1 + random.nextInt(28);
+                int to = Math.min(28, from + random.nextInt(5));
+                LocalDateTime fromDate = TaskList.parseDate(String.format("%02d-12-24", from));
+                LocalDateTime toDate = TaskList.parseDate(String.format("%02d-12-24", to));
+                int[] expected = taskList.getTasks().stream()
+                        .filter(task -> !task.getEndDateTime().isBefore(fromDate)
+                                && !(task.getStartDateTime() != null ? task.getStartDateTime()
+                                        : task.getEndDateTime()).isAfter(toDate))
+                        .mapToInt(task -> taskList.positionOf(task.getId()))
+                        .toArray();
+                int[] actual = taskList.findTasksBetween(fromDate, toDate);
+                Arrays.sort(actual);
+                assertArrayEquals(expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testFindOverlappingEventsSkipsDeadlinesAndItself() throws SagiriException {
+        TaskList taskList = new TaskList();
+        taskList.addEvent("camp /from 20-12-24 /to 30-12-24");
+        taskList.addDeadline("report /by 26-12-24");
+        taskList.addEvent("trip /from 01-12-24 /to 05-12-24");
+        Task party = taskList.addEvent("party /from 30-12-24 /to 31-12-24");
+
+        assertArrayEquals(new int[] {0}, taskList.findOverlappingEvents(party));
+        assertArrayEquals(new int[0], taskList.findOverlappingEvents(taskList.getTasks().get(2)));
+    }
+
+    @Test
+    public void testFindConflictsMatchesPairwiseCheck() throws SagiriException {
+        Random random = new Random(7);
+        TaskList taskList = new TaskList();
+        for (int i = 0; i < 400; i++) {
+            int day = 1 + random.nextInt(200);
+            LocalDateTime start = TaskList.parseDate("01-01-24").plusDays(day);
+            String from = start.format(DateTimeFormatter.ofPattern("dd-MM-yy"));
+            String to = start.plusDays(random.nextInt(3)).format(DateTimeFormatter.ofPattern("dd-MM-yy"));
+            if (random.nextInt(5) == 0) {
+                taskList.addDeadline("d /by " + from);
+            } else {
+                taskList.addEvent("e /from " + from + " /to " + to);
+            }
+        }
+        taskList.deleteTasks(taskList.select(100, 149));
+
+        // Label each event with the smallest position it is linked to through overlaps
+        List<Task> tasks = taskList.getTasks();
+        int[] label = new int[tasks.size()];
+        for (int i = 0; i < label.length; i++) {
+            label[i] = i;
+        }
+        for (boolean isChanged = true; isChanged; ) {
+            isChanged = false;
+            for (int i = 0; i < label.length; i++) {
+                for (int j = 0; j < label.length; j++) {
+                    if (overlap(tasks.get(i), tasks.get(j)) && label[j] < label[i]) {
+                        label[i] = label[j];
+                        isChanged = true;
+                    }
+                }
+            }
+        }
+        Map<Integer, Set<Integer>> expected = new HashMap<>();
+        for (int i = 0; i < label.length; i++) {
+            expected.computeIfAbsent(label[i], key -> new HashSet<>()).add(i);
+        }
+        expected.values().removeIf(group -> group.size() < 2 || tasks.get(group.iterator().next()).getType()
+                != TaskType.EVENT);
+
+        Set<Set<Integer>> actual = new HashSet<>();
+        for (int[] group : taskList.findConflicts()) {
+            actual.add(Arrays.stream(group).boxed().collect(Collectors.toSet()));
+        }
+        assertFalse(actual.isEmpty());
+        assertEquals(new HashSet<>(expected.values()), actual);
+    }
+
+    private static boolean overlap(Task a, Task b) {
+        return a.getType() == TaskType.EVENT && b.getType() == TaskType.EVENT
+                && !a.getEndDateTime().isBefore(b.getStartDateTime())
+                && !b.getEndDateTime().isBefore(a.getStartDateTime());
+    }
+
+    @Test
+    public void testFindTasksContainingIgnoresCase() throws SagiriException {
+        TaskList taskList = new TaskList();
+        taskList.addTodo("Read BOOK");
+        taskList.addTodo("buy milk");
+        taskList.addDeadline("return book /by 26-12-24");
+        taskList.addTodo("bookkeeping");
+
+        assertArrayEquals(new int[] {0, 2, 3}, taskList.findTasksContaining("book"));
+        assertArrayEquals(new int[] {0, 2, 3}, taskList.findTasksContaining("bo"));
+        assertArrayEquals(new int[] {2}, taskList.findTasksContaining("RN BO"));
+        assertArrayEquals(new int[0], taskList.findTasksContaining("books"));
+    }
+
+    @Test
+    public void testFindTasksContainingFollowsDeletes() throws SagiriException {
+        TaskList taskList = new TaskList();
+        for (int i = 0; i < 10; i++) {
+            taskList.addTodo("chapter " + i);
+        }
+        for (int i = 0; i < 8; i++) {
+            taskList.deleteTask(0);
+            int[] expected = new int[9 - i];
+            for (int j = 0; j < expected.length; j++) {
+                expected[j] = j;
+            }
+            assertArrayEquals(expected, taskList.findTasksContaining("chap"));
+        }
+        assertArrayEquals(new int[] {1}, taskList.findTasksContaining("ter 9"));
+    }
+
+    @Test
+    public void testBulkDeleteMatchesSingleDeletesInEveryStore() throws SagiriException {
+        for (TaskStore store : new TaskStore[] {new ArrayTaskStore(), new ColumnarTaskStore(),
+            new VersionedTaskStore()}) {
+            TaskList bulk = new TaskList(store);
+            TaskList single = new TaskList();
+            for (TaskList taskList : new TaskList[] {bulk, single}) {
+                for (int i = 0; i < 2000; i++) {
+                    taskList.addDeadline("report " + i + " /by " + String.format("%02d-12-24", 1 + i % 28));
+                    if (i % 3 == 0) {
+                        taskList.markTaskDone(i);
+                    }
+                }
+                taskList.findTasksContaining("report");
+            }
+
+            bulk.deleteTasks(bulk.select(TaskFilter.DONE));
+            bulk.deleteTasks(bulk.select(100, 599));
+            // Every third task is done; delete them from the back so positions hold
+            for (int i = 1998; i >= 0; i -= 3) {
+                single.deleteTask(i);
+            }
+            for (int i = 0; i < 500; i++) {
+                single.deleteTask(100);
+            }
+
+            assertEquals(single.size(), bulk.size());
+            for (int i = 0; i < single.size(); i++) {
+                assertEquals(single.getTasks().get(i).toString(), bulk.getTasks().get(i).toString());
+            }
+            assertArrayEquals(single.findTasksOn(TaskList.parseDate("05-12-24")),
+                    bulk.findTasksOn(TaskList.parseDate("05-12-24")));
+            assertArrayEquals(single.findTasksContaining("rt 19"), bulk.findTasksContaining("rt 19"));
+        }
+    }
+
+    @Test
+    public void testBulkMarkChecksPositions() throws SagiriException {
+        TaskList taskList = new TaskList();
+        for (int i = 0; i < 5; i++) {
+            taskList.addTodo("task " + i);
+        }
+        taskList.markTasks(taskList.select(1, 3), true);
+        assertEquals(3, taskList.select(TaskFilter.DONE).cardinality());
+        assertTrue(taskList.select(TaskFilter.UNDONE).get(4));
+        assertThrows(SagiriException.class, () -> taskList.select(2, 5));
+    }
+
+    @Test
+    public void testPositionOfFollowsDeletes() throws SagiriException {
+        TaskList taskList = new TaskList();
+        for (int i = 0; i < 6; i++) {
+            taskList.addTodo("task " + i);
+        }
+        taskList.deleteTask(1);
+        taskList.deleteTasks(taskList.select(2, 3));
+        assertEquals(2, taskList.positionOf(6));
+        assertEquals(0, taskList.positionOf(1));
+        assertEquals(-1, taskList.positionOf(2));
+    }
+
+    @Test
+    public void testSelectDoneBeforeSkipsRecentAndUndoneTasks() throws SagiriException {
+        TaskList taskList = new TaskList();
+        taskList.addTodo("done todo");
+        taskList.addTodo("open todo");
+        taskList.addDeadline("old report /by 01-11-24");
+        taskList.addDeadline("new report /by 01-12-24");
+        taskList.addEvent("trip /from 28-11-24 /to 02-12-24");
+        taskList.addDeadline("open report /by 01-11-24");
+        taskList.markTasks(taskList.select(0, 0), true);
+        taskList.markTasks(taskList.select(2, 4), true);
+        LocalDateTime cutoff = LocalDateTime.of(2024, 12, 1, 0, 0);
+        assertEquals(List.of(0, 2), taskList.selectDoneBefore(cutoff).stream().boxed().collect(Collectors.toList()));
+        assertEquals(List.of(0, 2, 3, 4),
+                taskList.selectDoneBefore(cutoff.plusDays(2)).stream().boxed().collect(Collectors.toList()));
+        // Todos have no date, so a done todo is selected whatever the cutoff
+        assertEquals(List.of(0),
+                taskList.selectDoneBefore(cutoff.minusYears(50)).stream().boxed().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testClearUndoHistoryForgetsEarlierChanges() throws SagiriException {
+        TaskList taskList = new TaskList();
+        taskList.enableUndo(TaskList.DEFAULT_UNDO_BUDGET_BYTES);
+        taskList.addTodo("kept");
+        taskList.addTodo("archived");
+        taskList.markTaskDone(1);
+        taskList.deleteTasks(taskList.selectDoneBefore(LocalDateTime.of(2024, 12, 1, 0, 0)));
+        taskList.clearUndoHistory();
+        assertNull(taskList.undo());
+        assertEquals(1, taskList.size());
+
+        taskList.addTodo("after");
+        assertNotNull(taskList.undo());
+        assertEquals(1, taskList.size());
+    }
+
+    @Test
+    public void testUndoAndRedoRetraceEveryChangeInEveryStore() throws SagiriException {
+        for (TaskStore store : new TaskStore[] {new ArrayTaskStore(), new ColumnarTaskStore(),
+            new VersionedTaskStore()}) {
+            TaskList taskList = new TaskList(store);
+            taskList.addTodo("before undo was enabled");
+            taskList.enableUndo(TaskList.DEFAULT_UNDO_BUDGET_BYTES);
+            taskList.findTasksContaining("report");
+            taskList.findTasksBetween(TaskList.parseDate("01-12-24"), TaskList.parseDate("31-12-24"));
+
+            List<String> states = new ArrayList<>();
+            states.add(render(taskList));
+            for (int i = 0; i < 40; i++) {
+                taskList.addDeadline("report " + i + " /by " + String.format("%02d-12-24", 1 + i % 28));
+                states.add(render(taskList));
+            }
+            taskList.markTaskDone(3);
+            states.add(render(taskList));
+            taskList.markTasks(taskList.select(0, 20), true);
+            states.add(render(taskList));
+            taskList.deleteTask(7);
+            states.add(render(taskList));
+            taskList.deleteTasks(taskList.select(TaskFilter.DONE));
+            states.add(render(taskList));
+            taskList.markTaskDone(0);
+            states.add(render(taskList));
+
+            for (int i = states.size() - 2; i >= 0; i--) {
+                assertNotNull(taskList.undo());
+                assertEquals(states.get(i), render(taskList));
+            }
+            assertNull(taskList.undo());
+            for (int i = 1; i < states.size(); i++) {
+                assertNotNull(taskList.redo());
+                assertEquals(states.get(i), render(taskList));
+            }
+            assertNull(taskList.redo());
+
+            // Undoing the bulk delete puts the tasks back into every index
+            taskList.undo();
+            taskList.undo();
+            assertEquals(states.get(states.size() - 3), render(taskList));
+            List<Task> tasks = taskList.getTasks();
+            int[] named = IntStream.range(0, tasks.size())
+                    .filter(i -> tasks.get(i).getName().contains("report 3")).toArray();
+            int[] due = IntStream.range(0, tasks.size())
+                    .filter(i -> "03 Dec 2024".equals(tasks.get(i).getEndDate())).toArray();
+            assertEquals(11, named.length);
+            assertArrayEquals(named, taskList.findTasksContaining("report 3"));
+            assertArrayEquals(due, taskList.findTasksOn(TaskList.parseDate("03-12-24")));
+            assertArrayEquals(due,
+                    taskList.findTasksBetween(TaskList.parseDate("03-12-24"), TaskList.parseDate("03-12-24")));
+
+            // A new change drops what could have been redone
+            taskList.addTodo("new");
+            assertNull(taskList.redo());
+        }
+    }
+
+    @Test
+    public void testUndoHistoryStaysWithinBudget() throws SagiriException {
+        TaskList taskList = new TaskList();
+        taskList.enableUndo(1000);
+        for (int i = 0; i < 100; i++) {
+            taskList.addTodo("task " + i);
+        }
+        int undone = 0;
+        while (taskList.undo() != null) {
+            undone++;
+        }
+        assertTrue(undone > 0 && undone < 20, "undone " + undone);
+        assertEquals(100 - undone, taskList.size());
+    }
+
+    private static String render(TaskList taskList) {
+        StringBuilder result = new StringBuilder();
+        for (Task task : taskList.getTasks()) {
+            result.append(task.getId()).append(' ').append(task).append('\n');
+        }
+        return result.toString();
+    }
+}
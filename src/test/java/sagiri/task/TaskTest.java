@@ -0,0 +1,30 @@
+package sagiri.task;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskTest {
+
+    @Test
+    public void testToStringFormats() {
+        assertEquals("[T][ ] buy milk", new Task("buy milk").toString());
+        assertEquals("[D][ ] report (by: 31 Dec 2024)", new Task("report", "31-12-24").toString());
+        assertEquals("[E][ ] trip (from: 24 Dec 2024 to: 26 Dec 2024)",
+                new Task("trip", "24-12-24", "26-12-24").toString());
+    }
+
+    @Test
+    public void testToStringIsCachedUntilStatusChanges() {
+        Task task = new Task("report", "31-12-24");
+        String first = task.toString();
+        assertSame(first, task.toString());
+
+        task.markAsDone();
+        assertEquals("[D][X] report (by: 31 Dec 2024)", task.toString());
+        assertSame(task.toString(), task.toString());
+
+        task.markAsNotDone();
+        assertEquals(first, task.toString());
+    }
+}
@@ -0,0 +1,124 @@
+package sagiri.task;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import sagiri.exception.SagiriException;
+
+public class VersionedTaskStoreTest {
+
+    @Test
+    public void testBehavesLikeArrayStore() throws SagiriException {
+        TaskList expected = new TaskList();
+        TaskList versioned = new TaskList(new VersionedTaskStore());
+        for (TaskList taskList : List.of(expected, versioned)) {
+            for (int i = 0; i < 3000; i++) {
+                taskList.addDeadline("report " + i + " /by " + String.format("%02d-12-24", 1 + i % 28));
+            }
+            for (int i = 0; i < 3000; i += 7) {
+                taskList.markTaskDone(i);
+            }
+            // Empties whole leaves and branches at the front, then scatters deletes
+            for (int i = 0; i < 1100; i++) {
+                taskList.deleteTask(0);
+            }
+            for (int i = 0; i < 500; i++) {
+                taskList.deleteTask(i * 2);
+            }
+            taskList.markTaskNotDone(700);
+            taskList.addTodo("added after deletes");
+        }
+
+        assertEquals(expected.size(), versioned.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getTasks().get(i).toString(), versioned.getTasks().get(i).toString());
+        }
+        assertArrayEquals(expected.findTasksContaining("rt 29"), versioned.findTasksContaining("rt 29"));
+        assertArrayEquals(expected.findTasksOn(TaskList.parseDate("05-12-24")),
+                versioned.findTasksOn(TaskList.parseDate("05-12-24")));
+    }
+
+    @Test
+    public void testSnapshotIsUnaffectedByLaterChanges() throws SagiriException {
+        TaskList taskList = new TaskList(new VersionedTaskStore());
+        for (int i = 0; i < 100; i++) {
+            taskList.addTodo("task " + i);
+        }
+        List<Task> snapshot = taskList.snapshot();
+        List<String> before = new ArrayList<>();
+        for (Task task : snapshot) {
+            before.add(task.toString());
+        }
+
+        taskList.markTaskDone(5);
+        taskList.deleteTask(0);
+        taskList.addTodo("task 100");
+
+        assertEquals(100, snapshot.size());
+        for (int i = 0; i < snapshot.size(); i++) {
+            assertEquals(before.get(i), snapshot.get(i).toString());
+        }
+        assertTrue(taskList.getTasks().get(4).isDone());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.remove(0));
+    }
+
+    @Test
+    public void testArrayStoreSnapshotIsUnaffectedByLaterChanges() throws SagiriException {
+        TaskList taskList = new TaskList(new ArrayTaskStore());
+        taskList.addTodo("buy milk");
+        List<Task> snapshot = taskList.snapshot();
+        taskList.markTaskDone(0);
+
+        assertFalse(snapshot.get(0).isDone());
+        assertTrue(taskList.getTasks().get(0).isDone());
+        assertFalse(taskList.hasLockFreeSnapshots());
+    }
+
+    @Test
+    public void testDefaultTaskListHandsOutSnapshots() throws SagiriException {
+        TaskList taskList = new TaskList();
+        taskList.addTodo("buy milk");
+        taskList.addTodo("read book");
+        List<Task> tasks = taskList.getTasks();
+        taskList.markTaskDone(0);
+        taskList.deleteTask(1);
+
+        assertTrue(taskList.hasLockFreeSnapshots());
+        assertEquals(2, tasks.size());
+        assertFalse(tasks.get(0).isDone());
+        assertTrue(taskList.getTasks().get(0).isDone());
+        assertThrows(UnsupportedOperationException.class, () -> tasks.add(new Task("x")));
+    }
+
+    @Test
+    public void testSnapshotsCanBeReadWhileWriting() throws Exception {
+        TaskList taskList = new TaskList(new VersionedTaskStore());
+        Thread writer = new Thread(() -> {
+            try {
+                for (int i = 0; i < 20000; i++) {
+                    taskList.addTodo("task " + i);
+                    if (i % 3 == 0) {
+                        taskList.deleteTask(0);
+                    }
+                }
+            } catch (SagiriException e) {
+                throw new AssertionError(e);
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            List<Task> snapshot = taskList.snapshot();
+            long previous = -1;
+            for (Task task : snapshot) {
+                assertTrue(task.getId() > previous);
+                previous = task.getId();
+            }
+        }
+        writer.join();
+        assertEquals(20000 - 6667, taskList.size());
+    }
+}
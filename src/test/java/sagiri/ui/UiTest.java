@@ -8,6 +8,7 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.io.StringWriter;
 import java.util.ArrayList;
 
 import sagiri.task.Task;
@@ -45,6 +46,21 @@ public class UiTest {
         assertTrue(output.contains("2.[D][ ] read book"));
     }
 
+    @Test
+    public void testPrintPageKeepsNumbering() {
+        ArrayList<Task> tasks = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            tasks.add(new Task("task " + i));
+        }
+        Ui.printPage(tasks, 2, 2, false);
+        String output = outContent.toString();
+        assertFalse(output.contains("task 2"));
+        assertTrue(output.contains("3.[T][ ] task 3"));
+        assertTrue(output.contains("4.[T][ ] task 4"));
+        assertFalse(output.contains("task 5"));
+        assertTrue(output.contains("Showing tasks 3-4 of 5."));
+    }
+
     @Test
     public void testPrintMarkedDone() {
         Task task = new Task("buy milk");
@@ -65,6 +81,20 @@ public class UiTest {
         assertTrue(output.contains("Now you have 1 tasks in the list."));
     }
 
+    @Test
+    public void testPrintAddedWarnsAboutOverlaps() {
+        ArrayList<Task> tasks = new ArrayList<>();
+        for (int i = 1; i <= 7; i++) {
+            tasks.add(new Task("camp " + i, "20-12-24", "30-12-24"));
+        }
+        Ui.printAdded(tasks.get(6), 7, tasks, new int[] {0, 1, 2, 3, 4, 5});
+        String output = outContent.toString();
+        assertTrue(output.contains("Heads up, it overlaps 6 other event(s):"));
+        assertTrue(output.contains("5.[E][ ] camp 5"));
+        assertFalse(output.contains("6.[E][ ] camp 6"));
+        assertTrue(output.contains("...and 1 more."));
+    }
+
     @Test
     public void testPrintError() {
         Ui.printError("Test error message");
@@ -78,4 +108,45 @@ public class UiTest {
         String output = outContent.toString();
         assertTrue(output.contains("Bye. Hope to see you again soon!"));
     }
+
+    @Test
+    public void testPrintTasksToConfiguredWriter() {
+        ArrayList<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            tasks.add(new Task("task " + i));
+        }
+        StringWriter writer = new StringWriter();
+        Ui.setOutput(writer);
+        try {
+            Ui.printTasks(tasks);
+        } finally {
+            Ui.setOutput(null);
+        }
+
+        String nl = System.lineSeparator();
+        String output = writer.toString();
+        assertTrue(output.startsWith("____________________________________________________________" + nl
+                + "1.[T][ ] task 0" + nl));
+        assertTrue(output.endsWith("5000.[T][ ] task 4999" + nl
+                + "____________________________________________________________" + nl));
+        assertEquals("", outContent.toString());
+    }
+
+    @Test
+    public void testOutputSettingsArePerThread() throws InterruptedException {
+        StringWriter writer = new StringWriter();
+        Thread session = new Thread(() -> {
+            Ui.setOutput(writer);
+            Ui.printError("from session");
+            Ui.setOutput(null);
+        });
+        session.start();
+        session.join();
+        Ui.printError("from console");
+
+        assertTrue(writer.toString().contains("from session"));
+        assertFalse(writer.toString().contains("from console"));
+        assertTrue(outContent.toString().contains("from console"));
+        assertFalse(outContent.toString().contains("from session"));
+    }
 }